@@ -17,19 +17,28 @@
 
 package io.github.jdevlibs.utils;
 
+import io.github.jdevlibs.utils.fotmat.DateFormatters;
+import io.github.jdevlibs.utils.fotmat.FixedDateCodec;
+import io.github.jdevlibs.utils.fotmat.ThaiDateFormatter;
+
 import java.sql.Timestamp;
-import java.text.DateFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalQuery;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * @author supot
@@ -42,6 +51,8 @@ public final class DateFormats {
 	private static final Locale TH 			= new Locale("th", "TH");
 	private static final DateTimeFormatter TIME_FM = DateTimeFormatter.ofPattern("HH:mm:ss");
 
+	// Formats of toLocalDate/toLocalDateTime, a first matched format in order is used.
+	// A format of dd/MM/yyyy never match a text of other formats, so formats are grouped by a '/' at index 2.
 	private static final DateTimeFormatter[] FMT_DATES = {
 			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.US),
 			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS", Locale.US),
@@ -50,14 +61,6 @@ public final class DateFormats {
 			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS", Locale.US),
 			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS", Locale.US),
 			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US),
-			DateTimeFormatter.ofPattern(FM_DATE, Locale.US),
-			DateTimeFormatter.ofPattern(FM_DT_TIME, Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSS", Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSS'Z'", Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSSSSS", Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSS", Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSS'Z'", Locale.US),
-			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSSSSS", Locale.US),
 			DateTimeFormatter.ISO_LOCAL_DATE,
 			DateTimeFormatter.ISO_DATE,
 			DateTimeFormatter.ISO_OFFSET_DATE,
@@ -69,6 +72,17 @@ public final class DateFormats {
 			DateTimeFormatter.ISO_DATE_TIME
 	};
 
+	private static final DateTimeFormatter[] FMT_SLASH_DATES = {
+			DateTimeFormatter.ofPattern(FM_DATE, Locale.US),
+			DateTimeFormatter.ofPattern(FM_DT_TIME, Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSS", Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSS'Z'", Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss.SSSSSS", Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSS", Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSS'Z'", Locale.US),
+			DateTimeFormatter.ofPattern("dd/MM/yyyy'T'HH:mm:ss.SSSSSS", Locale.US)
+	};
+
 	private static final DateTimeFormatter[] FMT_TIMES = {
 			DateTimeFormatter.ISO_LOCAL_TIME,
 			DateTimeFormatter.ISO_OFFSET_TIME,
@@ -223,9 +237,7 @@ public final class DateFormats {
 		}
 
 		try {
-			SimpleDateFormat dfm = new SimpleDateFormat(pattern, locale);
-			dfm.setLenient(false);
-			return dfm.parse(value.toString());
+			return DateFormatters.simpleDateFormat(pattern, locale).parse(value.toString());
 		} catch (ParseException ex) {
 			return null;
 		}
@@ -263,9 +275,20 @@ public final class DateFormats {
 				return EMPTY;
 			}
 
-			DateFormat fmt = new SimpleDateFormat(pattern, locale);
-			fmt.setLenient(false);
-			return fmt.format(date);
+			if (Locale.US.equals(locale) && FixedDateCodec.isSupported(pattern)) {
+				LocalDateTime dateTime = toCalendarDateTime(date);
+				// SimpleDateFormat use Julian calendar before 1582
+				String text = (dateTime.getYear() > 1582 ? formatFixed(dateTime, pattern) : null);
+				if (text != null) {
+					return text;
+				}
+			} else if (TH.equals(locale) && ThaiDateFormatter.isSupported(pattern)) {
+				LocalDateTime dateTime = toCalendarDateTime(date);
+				if (dateTime.getYear() > 1582) {
+					return ThaiDateFormatter.format(dateTime, pattern);
+				}
+			}
+			return DateFormatters.simpleDateFormat(pattern, locale).format(date);
 		} catch (Exception ex) {
 			return EMPTY;
 		}
@@ -326,10 +349,19 @@ public final class DateFormats {
 				return EMPTY;
 			}
 			if (TH.equals(locale)) {
+				if (ThaiDateFormatter.isSupported(pattern)) {
+					return ThaiDateFormatter.format(date, pattern);
+				}
 				Date dt = toDate(date);
 				return format(dt, pattern, locale);
 			}
-			return DateTimeFormatter.ofPattern(pattern, locale).format(date);
+			if (FixedDateCodec.DATE.equals(pattern)) {
+				StringBuilder builder = new StringBuilder(FixedDateCodec.DATE_LENGTH);
+				if (FixedDateCodec.formatDate(date, builder)) {
+					return builder.toString();
+				}
+			}
+			return DateFormatters.get(pattern, locale).format(date);
 		} catch (IllegalArgumentException ex) {
 			return EMPTY;
 		}
@@ -391,10 +423,17 @@ public final class DateFormats {
 			}
 
 			if (TH.equals(locale)) {
+				if (ThaiDateFormatter.isSupported(pattern)) {
+					return ThaiDateFormatter.format(dateTime, pattern);
+				}
 				Date date = toDate(dateTime);
 				return format(date, pattern, locale);
 			}
-			return DateTimeFormatter.ofPattern(pattern, locale).format(dateTime);
+			String text = formatFixed(dateTime, pattern);
+			if (text != null) {
+				return text;
+			}
+			return DateFormatters.get(pattern, locale).format(dateTime);
 		} catch (Exception ex) {
 			return EMPTY;
 		}
@@ -422,7 +461,7 @@ public final class DateFormats {
 		if (Validators.isNull(time)) {
 			return EMPTY;
 		}
-		return TIME_FM.format(time);
+		return formatFixedTime(time);
 	}
 
 	public static String formatTime(LocalTime time, String pattern) {
@@ -430,7 +469,10 @@ public final class DateFormats {
 			if (Validators.isNull(time)) {
 				return EMPTY;
 			}
-			return DateTimeFormatter.ofPattern(pattern).format(time);
+			if (FixedDateCodec.TIME.equals(pattern)) {
+				return formatFixedTime(time);
+			}
+			return DateFormatters.get(pattern).format(time);
 		} catch (Exception ex) {
 			return EMPTY;
 		}
@@ -483,29 +525,45 @@ public final class DateFormats {
 				.toLocalDateTime();
 	}
 
+	/**
+	 * Convert with an offset of a default TimeZone (same as Calendar), ZoneRules have other offsets before 1900
+	 */
+	private static LocalDateTime toCalendarDateTime(Date value) {
+		long time = value.getTime();
+		long local = time + TimeZone.getDefault().getOffset(time);
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000L),
+				(int) Math.floorMod(local, 1000L) * 1_000_000, ZoneOffset.UTC);
+	}
+
 	private static LocalDateTime toLocalDateTime(String value) {
 		if (Validators.isEmpty(value)) {
 			return null;
 		}
 
-		LocalDateTime dateTime = null;
-		for (DateTimeFormatter fmt : FMT_DATES) {
-			try {
-				dateTime = LocalDateTime.parse(value, fmt);
-			} catch (DateTimeParseException ex) {
-				//Ignore
-			}
-			if (dateTime != null) {
-				return dateTime;
-			}
+		LocalDateTime dateTime = parseFixedDateTime(value);
+		if (dateTime != null) {
+			return dateTime;
 		}
-
-		return null;
+		if (isFixedDate(value)) {
+			// no format parse a date only text to LocalDateTime
+			return null;
+		}
+		dateTime = FixedDateCodec.parseIsoDateTime(value, 0, value.length());
+		if (dateTime != null) {
+			return dateTime;
+		}
+		return parseDate(value, LocalDateTime::from);
 	}
 
 	private static LocalDateTime toLocalDateTime(String value, String pattern) {
+		if (value.length() == FixedDateCodec.DATE_TIME_LENGTH && FixedDateCodec.DATE_TIME.equals(pattern)) {
+			LocalDateTime dateTime = FixedDateCodec.parseDateTime(value, 0);
+			if (dateTime != null) {
+				return dateTime;
+			}
+		}
 		try {
-			return LocalDateTime.parse(value, DateTimeFormatter.ofPattern(pattern));
+			return LocalDateTime.parse(value, DateFormatters.get(pattern));
 		} catch (DateTimeParseException ex) {
 			return null;
 		}
@@ -522,30 +580,184 @@ public final class DateFormats {
 			return null;
 		}
 
-		LocalDate date = null;
-		for (DateTimeFormatter fmt : FMT_DATES) {
+		LocalDate date = parseFixedDate(value);
+		if (date != null) {
+			return date;
+		}
+		LocalDateTime dateTime = parseFixedDateTime(value);
+		if (dateTime == null) {
+			dateTime = FixedDateCodec.parseIsoDateTime(value, 0, value.length());
+		}
+		if (dateTime != null) {
+			return dateTime.toLocalDate();
+		}
+		return parseDate(value, LocalDate::from);
+	}
+
+	/**
+	 * Parse a text with formats which can match its shape, a format which cannot parse a text is skipped
+	 * without an exception. An exception is thrown only when a parsed value is invalid (e.g. 2020-02-30).
+	 */
+	private static <T> T parseDate(String value, TemporalQuery<T> query) {
+		boolean slash = value.length() > 2 && value.charAt(2) == '/';
+		for (DateTimeFormatter fmt : (slash ? FMT_SLASH_DATES : FMT_DATES)) {
 			try {
-				date = LocalDate.parse(value, fmt);
-			} catch (DateTimeParseException ex) {
-				// Ignore
+				ParsePosition position = new ParsePosition(0);
+				if (fmt.parseUnresolved(value, position) != null && position.getIndex() == value.length()) {
+					return fmt.parse(value, query);
+				}
+			} catch (DateTimeException ex) {
+				//Ignore, a value is out of range
 			}
+		}
+		return null;
+	}
 
-			if (date != null) {
-				return date;
+	/**
+	 * Parse yyyy-MM-dd or dd/MM/yyyy without a formatter
+	 * @return The date, null when a text is other shape or a value is out of range (parsed by formatters)
+	 */
+	private static LocalDate parseFixedDate(String value) {
+		if (value.length() != 10) {
+			return null;
+		}
+
+		if (value.charAt(2) == '/') {
+			return FixedDateCodec.parseDate(value, 0);
+		}
+		return FixedDateCodec.parseIsoDate(value, 0);
+	}
+
+	private static boolean isFixedDate(String value) {
+		return value.length() == 10 && ((value.charAt(4) == '-' && value.charAt(7) == '-')
+				|| (value.charAt(2) == '/' && value.charAt(5) == '/'));
+	}
+
+	/**
+	 * Parse date/time shapes of FMT_DATES without a formatter, yyyy-MM-dd or dd/MM/yyyy then a space or T,
+	 * HH:mm:ss and an optional .SSS, .SSS'Z' or .SSSSSS. A result is same as a first matched format.
+	 * @return The date time, null when a text is other shape or a value is out of range (parsed by formatters)
+	 */
+	private static LocalDateTime parseFixedDateTime(String value) {
+		int length = value.length();
+		if (length != 19 && length != 23 && length != 24 && length != 26) {
+			return null;
+		}
+
+		int year;
+		int month;
+		int day;
+		boolean slash;
+		if (value.charAt(4) == '-' && value.charAt(7) == '-') {
+			year = digits(value, 0, 4);
+			month = digits(value, 5, 2);
+			day = digits(value, 8, 2);
+			slash = false;
+		} else if (value.charAt(2) == '/' && value.charAt(5) == '/') {
+			day = digits(value, 0, 2);
+			month = digits(value, 3, 2);
+			year = digits(value, 6, 4);
+			slash = true;
+		} else {
+			return null;
+		}
+
+		char separator = value.charAt(10);
+		if ((separator != ' ' && separator != 'T') || value.charAt(13) != ':' || value.charAt(16) != ':') {
+			return null;
+		}
+
+		int nano = 0;
+		if (length == 19) {
+			if (slash && separator == 'T') {
+				return null;
+			}
+		} else {
+			if (value.charAt(19) != '.') {
+				return null;
+			}
+			if (length == 26) {
+				nano = digits(value, 20, 6) * 1_000;
+			} else {
+				// .SSS'Z' is not a format of yyyy-MM-dd HH:mm:ss
+				boolean zone = (length == 24);
+				if (zone && (value.charAt(23) != 'Z' || (!slash && separator == ' '))) {
+					return null;
+				}
+				nano = digits(value, 20, 3) * 1_000_000;
 			}
 		}
 
-		return null;
+		int hour = digits(value, 11, 2);
+		int minute = digits(value, 14, 2);
+		int second = digits(value, 17, 2);
+		if (nano < 0 || !isValidDate(year, month, day) || hour < 0 || hour > 23 || minute < 0 || minute > 59
+				|| second < 0 || second > 59) {
+			return null;
+		}
+		return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+	}
+
+	private static boolean isValidDate(int year, int month, int day) {
+		if (year < 1 || month < 1 || month > 12 || day < 1) {
+			return false;
+		}
+		return day <= 28 || day <= YearMonth.of(year, month).lengthOfMonth();
+	}
+
+	/**
+	 * Read ASCII digits
+	 * @return The number, -1 when a character is not a digit
+	 */
+	private static int digits(String value, int offset, int count) {
+		int result = 0;
+		for (int i = offset, end = offset + count; i < end; i++) {
+			int digit = value.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
 	}
 
 	private static LocalDate toLocalDate(String value, String pattern) {
+		if (value.length() == FixedDateCodec.DATE_LENGTH && FixedDateCodec.DATE.equals(pattern)) {
+			LocalDate date = FixedDateCodec.parseDate(value, 0);
+			if (date != null) {
+				return date;
+			}
+		}
 		try {
-			return LocalDate.parse(value, DateTimeFormatter.ofPattern(pattern));
+			return LocalDate.parse(value, DateFormatters.get(pattern));
 		} catch (DateTimeParseException ex) {
 			return null;
 		}
 	}
 
+	/**
+	 * Format dd/MM/yyyy, dd/MM/yyyy HH:mm:ss or HH:mm:ss without a formatter
+	 * @return The text, null when a pattern is other or a year cannot be formatted
+	 */
+	private static String formatFixed(LocalDateTime dateTime, String pattern) {
+		StringBuilder builder = new StringBuilder(FixedDateCodec.DATE_TIME_LENGTH);
+		if (FixedDateCodec.DATE_TIME.equals(pattern)) {
+			return (FixedDateCodec.formatDateTime(dateTime, builder) ? builder.toString() : null);
+		} else if (FixedDateCodec.DATE.equals(pattern)) {
+			return (FixedDateCodec.formatDate(dateTime.toLocalDate(), builder) ? builder.toString() : null);
+		} else if (FixedDateCodec.TIME.equals(pattern)) {
+			FixedDateCodec.formatTime(dateTime.toLocalTime(), builder);
+			return builder.toString();
+		}
+		return null;
+	}
+
+	private static String formatFixedTime(LocalTime time) {
+		StringBuilder builder = new StringBuilder(FixedDateCodec.TIME_LENGTH);
+		FixedDateCodec.formatTime(time, builder);
+		return builder.toString();
+	}
+
 	private static LocalTime toTime(Date value) {
 		return Instant.ofEpochMilli(value.getTime())
 				.atZone(ZoneId.systemDefault()).toLocalTime();
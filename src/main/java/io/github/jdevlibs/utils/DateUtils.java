@@ -16,10 +16,22 @@
  */
 package io.github.jdevlibs.utils;
 
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.*;
 
 /**
- * Utility class for manage date
+ * Utility class for manage date.
+ * Date fields and arithmetic use java.time rules of a default time zone (ISO calendar, a local time in a daylight
+ * saving gap is moved forward by a length of the gap), methods of long take epoch milliseconds.
+ * A timestamp before the Gregorian cutover (15/10/1582) use GregorianCalendar (Julian calendar, a year of era),
+ * same as a result of Calendar.
  * @author Supot Saelao
  * @version 1.0
  */
@@ -34,8 +46,13 @@ public final class DateUtils {
 	public static final String FM_TIME 			= "HH:mm:ss";
 	public static final String FM_NAME_SHORT 	= "dd MMM yyyy";
     public static final String FM_NAME_FULL		= "dd MMMM yyyy";
-    
+
+	private static final long MILLIS_PER_DAY = 86_400_000L;
+	/** Gregorian cutover of GregorianCalendar plus a day (a local date of any time zone is after the cutover) */
+	private static final long GREGORIAN_FROM = new GregorianCalendar().getGregorianChange().getTime() + MILLIS_PER_DAY;
+	private static final String[] DAY_NAMES = new String[7];
 	private static final Map<String, Locale> LOCALES;
+	private static volatile ZoneCache zoneCache;
 	static {
 		LOCALES = new HashMap<>(5);
 		LOCALES.put("en_US", US);
@@ -43,6 +60,10 @@ public final class DateUtils {
 		LOCALES.put("ja_JP", Locale.JAPAN);
 		LOCALES.put("zh_CN", Locale.CHINA);
 		LOCALES.put("th_TH", TH);
+
+		for (DayOfWeek day : DayOfWeek.values()) {
+			DAY_NAMES[day.ordinal()] = day.getDisplayName(TextStyle.SHORT, US);
+		}
 	}
 	
 	private DateUtils() {
@@ -110,143 +131,232 @@ public final class DateUtils {
 	}
 
 	public static int getYear() {
-		return Calendar.getInstance(US).get(Calendar.YEAR);
+		return getYear(System.currentTimeMillis());
 	}
 
 	public static int getYearThai() {
-		return getYearThai(getDate());
+		return getYear() + THAI_DIFF_YEAR;
 	}
 
 	public static int getYear(Date date) {
 		if (Validators.isNull(date)) {
 			return 0;
 		}
+		return getYear(date.getTime());
+	}
 
-		Calendar cal = Calendar.getInstance(US);
-		cal.setTime(date);
-		return cal.get(Calendar.YEAR);
+	public static int getYear(long epochMillis) {
+		if (epochMillis < GREGORIAN_FROM) {
+			return calendar(epochMillis).get(Calendar.YEAR);
+		}
+		return LocalDate.ofEpochDay(zone().toEpochDay(epochMillis)).getYear();
 	}
 
 	public static int getYearThai(Date date) {
 		if (Validators.isNull(date)) {
 			return 0;
 		}
-
-		Calendar cal = Calendar.getInstance(TH);
-		cal.setTime(date);
-		return cal.get(Calendar.YEAR);
+		return getYear(date.getTime()) + THAI_DIFF_YEAR;
 	}
 
 	public static int getMonth() {
-		Calendar cal = Calendar.getInstance();
-		return cal.get(Calendar.MONTH) + 1;
+		return getMonth(System.currentTimeMillis());
 	}
 
 	public static int getMonth(Date date) {
 		if (date == null) {
 			return 0;
 		}
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
+		return getMonth(date.getTime());
+	}
 
-		return cal.get(Calendar.MONTH) + 1;
+	public static int getMonth(long epochMillis) {
+		if (epochMillis < GREGORIAN_FROM) {
+			return calendar(epochMillis).get(Calendar.MONTH) + 1;
+		}
+		return LocalDate.ofEpochDay(zone().toEpochDay(epochMillis)).getMonthValue();
 	}
-	
+
 	public static int getDayOfMonth() {
-		Calendar cal = Calendar.getInstance();
-		return cal.get(Calendar.DAY_OF_MONTH);
+		return getDayOfMonth(System.currentTimeMillis());
 	}
 
 	public static int getDayOfMonth(Date date) {
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
+		return getDayOfMonth(date.getTime());
+	}
 
-		return cal.get(Calendar.DAY_OF_MONTH);
+	public static int getDayOfMonth(long epochMillis) {
+		return dayOfMonth(zone(), epochMillis);
 	}
 
 	public static int getTotalDayOfMonth() {
-		return getTotalDayOfMonth(getDate());
+		return getTotalDayOfMonth(System.currentTimeMillis());
 	}
-	
+
 	public static int getTotalDayOfMonth(Date date) {
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
+		return getTotalDayOfMonth(date.getTime());
+	}
 
-		return cal.getActualMaximum(Calendar.DAY_OF_MONTH);
+	public static int getTotalDayOfMonth(long epochMillis) {
+		if (epochMillis < GREGORIAN_FROM) {
+			return calendar(epochMillis).getActualMaximum(Calendar.DAY_OF_MONTH);
+		}
+		return LocalDate.ofEpochDay(zone().toEpochDay(epochMillis)).lengthOfMonth();
 	}
-	
+
 	public static int getWeekOfMonth() {
-		return getWeekOfMonth(getDate());
+		return getWeekOfMonth(System.currentTimeMillis());
 	}
-	
+
 	public static int getWeekOfMonth(Date date) {
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
-		int dayOfMonth = cal.get(Calendar.DAY_OF_MONTH);
-		if (dayOfMonth <= TOTAL_WEEK_IN_MONTH) {
-			return 1;
-		} else if (dayOfMonth <= 14) {
-			return 2;
-		} else if (dayOfMonth <= 21) {
-			return 3;
-		} else {
-			return 4;
+		return getWeekOfMonth(date.getTime());
+	}
+
+	public static int getWeekOfMonth(long epochMillis) {
+		return weekOfMonth(dayOfMonth(zone(), epochMillis));
+	}
+
+	/**
+	 * Get week of month of timestamps
+	 * @param epochMillis The timestamps
+	 * @return The weeks (1-4) of each timestamp
+	 */
+	public static int[] getWeekOfMonth(long[] epochMillis) {
+		ZoneCache zone = zone();
+		int[] results = new int[epochMillis.length];
+		for (int i = 0; i < epochMillis.length; i++) {
+			results[i] = weekOfMonth(dayOfMonth(zone, epochMillis[i]));
 		}
+		return results;
 	}
-	
+
 	public static String getDayOfMonthName() {
-		return getDayOfMonthName(getDate());
+		return getDayOfMonthName(System.currentTimeMillis());
 	}
 
 	public static String getDayOfMonthName(Date date) {
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
+		return getDayOfMonthName(date.getTime());
+	}
 
-		return cal.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.SHORT, Locale.US);
+	public static String getDayOfMonthName(long epochMillis) {
+		// epoch day 0 (1970-01-01) is Thursday
+		return DAY_NAMES[(int) Math.floorMod(zone().toEpochDay(epochMillis) + 3, 7L)];
 	}
 
 	public static Date addSecond(Date date, int second) {
-		return addDate(date, Calendar.SECOND, second);
+		return addDate(date, second, ChronoUnit.SECONDS);
 	}
-	
+
+	public static long addSecond(long epochMillis, int second) {
+		return epochMillis + second * 1_000L;
+	}
+
 	public static Date addMinute(Date date, int minute) {
-		return addDate(date, Calendar.MINUTE, minute);
+		return addDate(date, minute, ChronoUnit.MINUTES);
+	}
+
+	public static long addMinute(long epochMillis, int minute) {
+		return epochMillis + minute * 60_000L;
 	}
 
 	public static Date addHour(Date date, int hour) {
-		return addDate(date, Calendar.HOUR, hour);
+		return addDate(date, hour, ChronoUnit.HOURS);
+	}
+
+	public static long addHour(long epochMillis, int hour) {
+		return epochMillis + hour * 3_600_000L;
 	}
 
 	public static Date addDay(Date date, int day) {
-		return addDate(date, Calendar.DATE, day);
+		return addDate(date, day, ChronoUnit.DAYS);
+	}
+
+	/**
+	 * Add days of a local date in a default time zone, a time of day is kept (same as Calendar.add)
+	 * @param epochMillis The timestamp
+	 * @param day The number of days
+	 * @return The timestamp
+	 */
+	public static long addDay(long epochMillis, int day) {
+		return zone().plus(epochMillis, day, ChronoUnit.DAYS);
+	}
+
+	/**
+	 * Add days to all timestamps in place
+	 * @param epochMillis The timestamps
+	 * @param day The number of days
+	 */
+	public static void addDay(long[] epochMillis, int day) {
+		plus(epochMillis, day, ChronoUnit.DAYS);
 	}
 
 	public static Date addWeek(Date date, int week) {
-		return addDate(date, Calendar.DATE, (week * 7));
+		return addDate(date, (week * 7), ChronoUnit.DAYS);
 	}
-	
+
+	public static long addWeek(long epochMillis, int week) {
+		return addDay(epochMillis, week * 7);
+	}
+
 	public static Date addMonth(Date date, int month) {
-		return addDate(date, Calendar.MONTH, month);
+		return addDate(date, month, ChronoUnit.MONTHS);
+	}
+
+	/**
+	 * Add months of a local date in a default time zone, a day is the last day of month when a day is not in a month
+	 * (e.g. 31/01/2021 plus 1 month is 28/02/2021)
+	 * @param epochMillis The timestamp
+	 * @param month The number of months
+	 * @return The timestamp
+	 */
+	public static long addMonth(long epochMillis, int month) {
+		return zone().plus(epochMillis, month, ChronoUnit.MONTHS);
+	}
+
+	/**
+	 * Add months to all timestamps in place
+	 * @param epochMillis The timestamps
+	 * @param month The number of months
+	 */
+	public static void addMonth(long[] epochMillis, int month) {
+		plus(epochMillis, month, ChronoUnit.MONTHS);
 	}
 
 	public static Date addYear(Date date, int year) {
-		return addDate(date, Calendar.YEAR, year);
+		return addDate(date, year, ChronoUnit.YEARS);
 	}
-	
+
+	public static long addYear(long epochMillis, int year) {
+		return zone().plus(epochMillis, year, ChronoUnit.YEARS);
+	}
+
 	public static Date trunc(Date date) {
 		if (Validators.isNull(date)) {
 			return null;
 		}
-		
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTime(date);
-		calendar.set(Calendar.HOUR_OF_DAY, 0);
-		calendar.set(Calendar.MINUTE, 0);
-		calendar.set(Calendar.SECOND, 0);
-		calendar.set(Calendar.MILLISECOND, 0);
-		return calendar.getTime();
+		return new Date(trunc(date.getTime()));
+	}
+
+	/**
+	 * Truncate a timestamp to a start of day in a default time zone
+	 * @param epochMillis The timestamp
+	 * @return The timestamp of a start of day
+	 */
+	public static long trunc(long epochMillis) {
+		return zone().trunc(epochMillis);
+	}
+
+	/**
+	 * Truncate all timestamps to a start of day in place
+	 * @param epochMillis The timestamps
+	 */
+	public static void trunc(long[] epochMillis) {
+		ZoneCache zone = zone();
+		for (int i = 0; i < epochMillis.length; i++) {
+			epochMillis[i] = zone.trunc(epochMillis[i]);
+		}
 	}
-	
+
 	public static Date max(Date date1, Date date2) {
 		if (date1 == null) {
 			return date2;
@@ -267,14 +377,149 @@ public final class DateUtils {
 		return (date1.before(date2)) ? date1 : date2;
 	}
 	
-	private static Date addDate(Date date, int type, int value) {
+	private static Date addDate(Date date, int value, ChronoUnit unit) {
 		if (date == null || value == 0) {
 			return date;
 		}
 
-		Calendar cal = Calendar.getInstance();
-		cal.setTime(date);
-		cal.add(type, value);
-		return cal.getTime();
+		long time = date.getTime();
+		if (unit.isTimeBased()) {
+			return new Date(time + value * unit.getDuration().toMillis());
+		}
+		return new Date(zone().plus(time, value, unit));
+	}
+
+	private static void plus(long[] epochMillis, int value, ChronoUnit unit) {
+		ZoneCache zone = zone();
+		for (int i = 0; i < epochMillis.length; i++) {
+			epochMillis[i] = zone.plus(epochMillis[i], value, unit);
+		}
+	}
+
+	private static int dayOfMonth(ZoneCache zone, long epochMillis) {
+		if (epochMillis < GREGORIAN_FROM) {
+			return calendar(epochMillis).get(Calendar.DAY_OF_MONTH);
+		}
+		return LocalDate.ofEpochDay(zone.toEpochDay(epochMillis)).getDayOfMonth();
+	}
+
+	private static Calendar calendar(long epochMillis) {
+		Calendar calendar = new GregorianCalendar();
+		calendar.setTimeInMillis(epochMillis);
+		return calendar;
+	}
+
+	private static int weekOfMonth(int dayOfMonth) {
+		if (dayOfMonth <= TOTAL_WEEK_IN_MONTH) {
+			return 1;
+		} else if (dayOfMonth <= 14) {
+			return 2;
+		} else if (dayOfMonth <= 21) {
+			return 3;
+		} else {
+			return 4;
+		}
+	}
+
+	/**
+	 * Get rules of a default time zone, the rules are created again when a default time zone is changed
+	 */
+	private static ZoneCache zone() {
+		TimeZone timeZone = TimeZone.getDefault();
+		ZoneCache cache = zoneCache;
+		if (cache == null || !cache.id.equals(timeZone.getID())) {
+			cache = new ZoneCache(timeZone.getID(), timeZone.toZoneId());
+			zoneCache = cache;
+		}
+		return cache;
+	}
+
+	/**
+	 * Zone rules of a time zone. An offset of most zones (e.g. Asia/Bangkok) never change after a last transition,
+	 * a timestamp after it is converted with an offset arithmetic instead of ZonedDateTime.
+	 */
+	private static final class ZoneCache {
+		private final String id;
+		private final ZoneId zone;
+		private final ZoneRules rules;
+		/** Start of a fixed offset, Long.MAX_VALUE when an offset always change (daylight saving time) */
+		private final long fixedFrom;
+		private final long fixedOffset;
+
+		private ZoneCache(String id, ZoneId zone) {
+			this.id = id;
+			this.zone = zone;
+			this.rules = zone.getRules();
+
+			List<ZoneOffsetTransition> transitions = rules.getTransitions();
+			if (rules.isFixedOffset()) {
+				fixedFrom = Long.MIN_VALUE;
+				fixedOffset = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1_000L;
+			} else if (rules.getTransitionRules().isEmpty() && !transitions.isEmpty()) {
+				ZoneOffsetTransition last = transitions.get(transitions.size() - 1);
+				fixedFrom = last.toEpochSecond() * 1_000L;
+				fixedOffset = last.getOffsetAfter().getTotalSeconds() * 1_000L;
+			} else {
+				fixedFrom = Long.MAX_VALUE;
+				fixedOffset = 0L;
+			}
+		}
+
+		private long toEpochDay(long epochMillis) {
+			if (epochMillis >= fixedFrom) {
+				return Math.floorDiv(epochMillis + fixedOffset, MILLIS_PER_DAY);
+			}
+			Instant instant = Instant.ofEpochMilli(epochMillis);
+			return Math.floorDiv(instant.getEpochSecond() + rules.getOffset(instant).getTotalSeconds(), 86_400L);
+		}
+
+		private long plus(long epochMillis, int value, ChronoUnit unit) {
+			long result = (epochMillis < GREGORIAN_FROM ? Long.MIN_VALUE : plusIso(epochMillis, value, unit));
+			if (result < GREGORIAN_FROM) {
+				Calendar calendar = calendar(epochMillis);
+				calendar.add(unit == ChronoUnit.DAYS ? Calendar.DATE
+						: (unit == ChronoUnit.MONTHS ? Calendar.MONTH : Calendar.YEAR), value);
+				return calendar.getTimeInMillis();
+			}
+			return result;
+		}
+
+		private long plusIso(long epochMillis, int value, ChronoUnit unit) {
+			if (epochMillis >= fixedFrom) {
+				long local = epochMillis + fixedOffset;
+				long day = Math.floorDiv(local, MILLIS_PER_DAY);
+				long result = day;
+				if (unit == ChronoUnit.DAYS) {
+					result += value;
+				} else if (value != 0) {
+					result = LocalDate.ofEpochDay(day).plus(value, unit).toEpochDay();
+				}
+				result = local + (result - day) * MILLIS_PER_DAY - fixedOffset;
+				if (result >= fixedFrom) {
+					return result;
+				}
+			}
+			return Instant.ofEpochMilli(epochMillis).atZone(zone).plus(value, unit).toInstant().toEpochMilli();
+		}
+
+		private long trunc(long epochMillis) {
+			if (epochMillis < GREGORIAN_FROM) {
+				Calendar calendar = calendar(epochMillis);
+				calendar.set(Calendar.HOUR_OF_DAY, 0);
+				calendar.set(Calendar.MINUTE, 0);
+				calendar.set(Calendar.SECOND, 0);
+				calendar.set(Calendar.MILLISECOND, 0);
+				return calendar.getTimeInMillis();
+			}
+			if (epochMillis >= fixedFrom) {
+				long local = epochMillis + fixedOffset;
+				long result = local - Math.floorMod(local, MILLIS_PER_DAY) - fixedOffset;
+				if (result >= fixedFrom) {
+					return result;
+				}
+			}
+			LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(zone).toLocalDate();
+			return date.atStartOfDay(zone).toInstant().toEpochMilli();
+		}
 	}
 }
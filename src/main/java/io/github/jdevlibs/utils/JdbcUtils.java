@@ -16,10 +16,20 @@
  */
 package io.github.jdevlibs.utils;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.jdevlibs.utils.jdbc.Dialect;
+import io.github.jdevlibs.utils.jdbc.JdbcMetadataCache;
+import io.github.jdevlibs.utils.jdbc.RowMap;
 
 /**
  * Utility class for manage JDBC
@@ -28,12 +38,24 @@ import java.util.*;
  * @version 1.0
  */
 public final class JdbcUtils {
-	private static final String COL_NAME = "COLUMN_NAME";
 
 	private static final String FM_TIME = "HH:mm:ss";
 	private static final String FM_DATE_TIME = "dd/MM/yyyy HH:mm:ss";
-	private static final Character ESC_CHAR = '!';
-	private static final String[] ESC_CHARS = { "!", "_", "%" };
+	private static final char ESC_CHAR = '!';
+	private static final String ESC_CLAUSE = " escape '" + ESC_CHAR + "'";
+	private static final int LOB_BUFFER_SIZE = 8192;
+	private static final char[] BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+
+	// converted names are cached, a cache is cleared when it is full (names of a schema are a small set)
+	private static final int MAX_CACHED_NAMES = 4096;
+	private static final Map<String, String> PROPERTY_NAMES = new ConcurrentHashMap<>();
+	private static final Map<String, String> NESTED_PROPERTY_NAMES = new ConcurrentHashMap<>();
+	private static final Map<String, String> CLASS_NAMES = new ConcurrentHashMap<>();
+	private static final Map<String, String> HEADER_NAMES = new ConcurrentHashMap<>();
+
+	// last columns of resultSetToMap per thread, threads reading different ResultSets do not evict each other
+	private static final ThreadLocal<RowColumns> LAST_ROW_COLUMNS = new ThreadLocal<>();
 	
 	private JdbcUtils() {
 	}
@@ -54,51 +76,35 @@ public final class JdbcUtils {
 		}
 	}
 	
+	/**
+	 * Verify that a connection is MySQL, the database product is resolved once per JDBC URL
+	 * @param conn The connection
+	 * @return true when MySQL
+	 * @see Dialect#of(Connection)
+	 */
 	public static boolean isMySql(Connection conn) {
-		String dbProduct = getDatabaseProductName(conn);
-		if (dbProduct == null) {
-			return false;
-		}
-		return dbProduct.toLowerCase().contains("mysql");
+		return Dialect.of(conn) == Dialect.MYSQL;
 	}
 	
 	public static boolean isOracle(Connection conn) {
-		String dbProduct = getDatabaseProductName(conn);
-		if (dbProduct == null) {
-			return false;
-		}		
-		return dbProduct.toLowerCase().contains("oracle");
+		return Dialect.of(conn) == Dialect.ORACLE;
 	}
 	
 	public static boolean isMsSql(Connection conn) {
-		String dbProduct = getDatabaseProductName(conn);
-		if (dbProduct == null) {
-			return false;
-		}		
-		return dbProduct.toLowerCase().contains("sql server")
-				|| dbProduct.toLowerCase().contains("microsoft sql server");
+		return Dialect.of(conn) == Dialect.MSSQL;
 	}
 	
 	/**
-	 * Verify that table name are present in the Database
+	 * Verify that table name are present in the Database.
+	 * Table metadata methods of this class read through {@link JdbcMetadataCache#getDefault()},
+	 * call {@link JdbcMetadataCache#invalidate(DatabaseMetaData, String)} after a table is altered.
 	 * 
 	 * @param dbMeta the DatabaseMetaData object
 	 * @param table  The table for verify
 	 * @return true when table is exists
 	 */
 	public static boolean existsTable(DatabaseMetaData dbMeta, String table) {
-		ResultSet rs = null;
-		try {
-			String schema = getUserName(dbMeta, table);
-			rs = dbMeta.getColumns(null, schema, getTableName(table), null);
-			return rs.next();
-		} catch (SQLException ex) {
-			//Ignore
-		} finally {
-			close(rs);
-		}
-
-		return false;
+		return JdbcMetadataCache.getDefault().existsTable(dbMeta, table);
 	}
 
 	/**
@@ -147,21 +153,7 @@ public final class JdbcUtils {
 	}
 
 	public static List<String> getColumns(DatabaseMetaData dbMeta, String table) {
-		List<String> columns = new ArrayList<>();
-		ResultSet rs = null;
-		try {
-			String schema = getUserName(dbMeta, table);
-			rs = dbMeta.getColumns(null, schema, getTableName(table), null);
-			while (rs.next()) {
-				columns.add(rs.getString(COL_NAME));
-			}
-		} catch (SQLException ex) {
-			//Ignore
-		} finally {
-			close(rs);
-		}
-
-		return columns;
+		return new ArrayList<>(JdbcMetadataCache.getDefault().getColumns(dbMeta, table));
 	}
 
 	public static Map<String, Integer> getColumWithTypes(ResultSetMetaData rsMeta) {
@@ -202,61 +194,35 @@ public final class JdbcUtils {
 	}
 
 	public static Map<String, String> getPrimaryKey(DatabaseMetaData dbMeta, String table) {
-		Map<String, String> keys = new TreeMap<>();
-		ResultSet rs = null;
-		try {
-			String schema = getUserName(dbMeta, table);
-			rs = dbMeta.getPrimaryKeys(null, schema, getTableName(table));
-			while (rs.next()) {
-				keys.put(rs.getString(COL_NAME), rs.getString("PK_NAME"));
-			}
-		} catch (SQLException ex) {
-			//Ignore
-		} finally {
-			close(rs);
-		}
+		return new TreeMap<>(JdbcMetadataCache.getDefault().getPrimaryKey(dbMeta, table));
+	}
 
-		return keys;
+	/**
+	 * Get primary key columns in key order (KEY_SEQ of a composite key), a value is a primary key name
+	 * @param dbMeta the DatabaseMetaData object
+	 * @param table The table name
+	 * @return The primary key columns ordered by KEY_SEQ
+	 */
+	public static Map<String, String> getPrimaryKeyInOrder(DatabaseMetaData dbMeta, String table) {
+		return new LinkedHashMap<>(JdbcMetadataCache.getDefault().getPrimaryKeyInOrder(dbMeta, table));
 	}
 
 	public static Map<String, Integer> getColumnType(DatabaseMetaData dbMeta, String table) {
-		Map<String, Integer> columns = new LinkedHashMap<>();
-		ResultSet rs = null;
-		try {
-			String schema = getUserName(dbMeta, table);
-			rs = dbMeta.getColumns(null, schema, getTableName(table), null);
-			while (rs.next()) {
-				columns.put(rs.getString(COL_NAME), rs.getInt("DATA_TYPE"));
-			}
-		} catch (SQLException ex) {
-			//Ignore
-		} finally {
-			close(rs);
-		}
-
-		return columns;
+		return new LinkedHashMap<>(JdbcMetadataCache.getDefault().getColumnType(dbMeta, table));
 	}
 
 	public static Map<String, ColumnType> getColumnSqlType(DatabaseMetaData dbMeta, String table) {
-		Map<String, ColumnType> columns = new LinkedHashMap<>();
-		ResultSet rs = null;
-		try {
-			String schema = getUserName(dbMeta, table);
-			rs = dbMeta.getColumns(null, schema, getTableName(table), null);
-			while (rs.next()) {
-				ColumnType type = new ColumnType(rs.getInt("DATA_TYPE"), rs.getInt("DECIMAL_DIGITS"));
-				columns.put(rs.getString(COL_NAME), type);
-			}
-		} catch (SQLException ex) {
-			//Ignore
-		} finally {
-			close(rs);
-		}
-
-		return columns;
+		// ColumnType values are copies of cached types
+		return new LinkedHashMap<>(JdbcMetadataCache.getDefault().getColumnSqlType(dbMeta, table));
 	}
 
-	private static String getUserName(DatabaseMetaData dbMeta, String table) {
+	/**
+	 * Get schema of table name (e.g. SCHEMA.TABLE), When table name without a schema return connection user name
+	 * @param dbMeta the DatabaseMetaData object
+	 * @param table The table name
+	 * @return The schema name
+	 */
+	public static String getSchemaName(DatabaseMetaData dbMeta, String table) {
 		try {
 			if (Validators.isEmpty(table)) {
 				return dbMeta.getUserName();
@@ -272,7 +238,12 @@ public final class JdbcUtils {
 		}
 	}
 
-	private static String getTableName(String table) {
+	/**
+	 * Get table name without a schema (e.g. SCHEMA.TABLE to TABLE)
+	 * @param table The table name
+	 * @return The table name
+	 */
+	public static String getTableName(String table) {
 		if (Validators.isEmpty(table)) {
 			return table;
 		}
@@ -383,6 +354,85 @@ public final class JdbcUtils {
 		return value;
 	}
 
+	/**
+	 * Convert ResultSet value to JDBC Type by column index
+	 * <pre>
+	 * Types.CLOB to String
+	 * Types.BLOB to byte[] array
+	 * </pre>
+	 * @param rs JDBC ResultSet
+	 * @param index The column index (first column is 1)
+	 * @param type The column type
+	 * @return Value of column
+	 * @throws SQLException When exception
+	 */
+	public static Object getResultSetValue(ResultSet rs, int index, int type) throws SQLException {
+		switch (type) {
+		case Types.VARCHAR:
+		case Types.CHAR:
+		case Types.LONGVARCHAR:
+		case Types.LONGNVARCHAR:
+		case Types.NVARCHAR:
+		case Types.NCHAR:
+			return rs.getString(index);
+		case Types.DATE:
+			return rs.getDate(index);
+		case Types.TIMESTAMP:
+			return rs.getTimestamp(index);
+		case Types.TIME:
+			return rs.getTime(index);
+		case Types.CLOB:
+			return readClob(rs.getClob(index));
+		case Types.BLOB:
+			return rs.getBytes(index);
+		default:
+			return rs.getObject(index);
+		}
+	}
+
+	/**
+	 * Convert ResultSet value to String by column index
+	 * <pre>
+	 * Types.CLOB to String
+	 * Types.BLOB to Base64 String
+	 * </pre>
+	 * @param rs JDBC ResultSet
+	 * @param index The column index (first column is 1)
+	 * @param type The column type
+	 * @return Value of column
+	 */
+	public static String getResultValue(ResultSet rs, int index, int type) {
+		try {
+			switch (type) {
+			case Types.VARCHAR:
+			case Types.NCHAR:
+			case Types.CHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+			case Types.LONGVARCHAR:
+				return rs.getString(index);
+			case Types.DATE:
+				return DateFormats.format(rs.getDate(index), FM_DATE_TIME);
+			case Types.TIMESTAMP:
+				return DateFormats.format(rs.getTimestamp(index), FM_DATE_TIME);
+			case Types.TIME:
+				return DateFormats.format(rs.getTime(index), FM_TIME);
+			case Types.CLOB:
+				return readClob(rs.getClob(index));
+			case Types.BLOB:
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY:
+				return readBlob(rs.getBytes(index));
+			default:
+				Object obj = rs.getObject(index);
+				return (obj == null ? null : obj.toString());
+			}
+		} catch (SQLException ex) {
+			return null;
+		}
+	}
+
 	public static String readClob(Clob clob) {
 		if (Validators.isNull(clob)) {
 			return null;
@@ -432,6 +482,135 @@ public final class JdbcUtils {
 		return Encryptions.encodeBase64String(values);
 	}
 
+	/**
+	 * Copy Clob content to a writer without loading all content to memory.
+	 * The Clob is freed after copy.
+	 * @param clob The Clob value
+	 * @param writer The target writer
+	 * @return Number of characters
+	 * @throws SQLException When cannot read Clob
+	 * @throws IOException When cannot write content
+	 */
+	public static long writeClob(Clob clob, Writer writer) throws SQLException, IOException {
+		return writeClob(clob, writer, new char[LOB_BUFFER_SIZE]);
+	}
+
+	/**
+	 * Copy Clob content to a writer using a caller buffer (the buffer can be reused for many Clob).
+	 * The Clob is freed after copy.
+	 * @param clob The Clob value
+	 * @param writer The target writer
+	 * @param buffer The copy buffer
+	 * @return Number of characters
+	 * @throws SQLException When cannot read Clob
+	 * @throws IOException When cannot write content
+	 */
+	public static long writeClob(Clob clob, Writer writer, char[] buffer) throws SQLException, IOException {
+		if (clob == null) {
+			return 0L;
+		}
+
+		long count = 0L;
+		try (Reader reader = clob.getCharacterStream()) {
+			int n;
+			while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+				writer.write(buffer, 0, n);
+				count += n;
+			}
+		} finally {
+			freeQuietly(clob);
+		}
+		return count;
+	}
+
+	/**
+	 * Copy Blob content to an output stream without loading all content to memory.
+	 * The Blob is freed after copy.
+	 * @param blob The Blob value
+	 * @param output The target output stream
+	 * @return Number of bytes
+	 * @throws SQLException When cannot read Blob
+	 * @throws IOException When cannot write content
+	 */
+	public static long writeBlob(Blob blob, OutputStream output) throws SQLException, IOException {
+		return writeBlob(blob, output, new byte[LOB_BUFFER_SIZE]);
+	}
+
+	public static long writeBlob(Blob blob, OutputStream output, byte[] buffer) throws SQLException, IOException {
+		if (blob == null) {
+			return 0L;
+		}
+
+		try (InputStream input = blob.getBinaryStream()) {
+			return copy(input, output, buffer);
+		} finally {
+			freeQuietly(blob);
+		}
+	}
+
+	/**
+	 * Encode Blob content with Base64 to an output stream on the fly, The output stream is not closed.
+	 * The Blob is freed after copy.
+	 * @param blob The Blob value
+	 * @param output The target output stream
+	 * @param buffer The copy buffer
+	 * @return Number of Blob bytes
+	 * @throws SQLException When cannot read Blob
+	 * @throws IOException When cannot write content
+	 */
+	public static long writeBlobBase64(Blob blob, OutputStream output, byte[] buffer)
+			throws SQLException, IOException {
+		if (blob == null) {
+			return 0L;
+		}
+
+		try (InputStream input = blob.getBinaryStream();
+			 OutputStream base64 = Base64.getEncoder().wrap(new NonClosingOutputStream(output))) {
+			return copy(input, base64, buffer);
+		} finally {
+			freeQuietly(blob);
+		}
+	}
+
+	public static long writeBlobBase64(Blob blob, Writer writer) throws SQLException, IOException {
+		return writeBlobBase64(blob, writer, new byte[LOB_BUFFER_SIZE], new char[LOB_BUFFER_SIZE / 3 * 4 + 4]);
+	}
+
+	/**
+	 * Encode Blob content with Base64 to a writer on the fly, the buffers can be reused for many Blob.
+	 * The Blob is freed after copy.
+	 * @param blob The Blob value
+	 * @param writer The target writer
+	 * @param buffer The read buffer (at least 3 bytes)
+	 * @param charBuffer The encode buffer (at least buffer.length / 3 * 4 + 4 characters)
+	 * @return Number of Blob bytes
+	 * @throws SQLException When cannot read Blob
+	 * @throws IOException When cannot write content
+	 */
+	public static long writeBlobBase64(Blob blob, Writer writer, byte[] buffer, char[] charBuffer)
+			throws SQLException, IOException {
+		if (blob == null) {
+			return 0L;
+		}
+
+		int chunk = buffer.length - (buffer.length % 3);
+		if (chunk == 0 || charBuffer.length < chunk / 3 * 4 + 4) {
+			throw new IllegalArgumentException("Buffer size is too small");
+		}
+
+		long count = 0L;
+		try (InputStream input = blob.getBinaryStream()) {
+			int n;
+			while ((n = readFully(input, buffer, chunk)) > 0) {
+				writer.write(charBuffer, 0, encodeBase64(buffer, n, charBuffer));
+				count += n;
+			}
+		} finally {
+			freeQuietly(blob);
+		}
+		return count;
+	}
+
 	public static Object toSqlValue(int type, String objVal) {
 		Object obj;
 		switch (type) {
@@ -484,96 +663,130 @@ public final class JdbcUtils {
 	}
 
 	public static String toPropertyName(String name) {
-		if (Validators.isEmpty(name)) {
+		if (name == null) {
 			return null;
 		}
 
-		name = name.replaceAll("\\s+", "_");
-		if (isValidProperty(name)) {
-			return name;
+		String property = PROPERTY_NAMES.get(name);
+		if (property == null) {
+			if (isBlank(name)) {
+				return null;
+			}
+			property = convertPropertyName(name);
+			cacheName(PROPERTY_NAMES, name, property);
 		}
+		return property;
+	}
 
-		StringBuilder result = new StringBuilder();
-		boolean nextIsUpper = false;
-		if (name.length() > 1 && name.charAt(1) == '_') {
-			result.append(name.substring(0, 1).toUpperCase());
-		} else {
-			result.append(name.substring(0, 1).toLowerCase());
+	public static String toNestedPropertyName(String name) {
+		if (name == null) {
+			return null;
 		}
 
-		for (int i = 1; i < name.length(); i++) {
-			String s = name.substring(i, i + 1);
-			if (s.equals("_")) {
-				nextIsUpper = true;
-			} else {
-				if (nextIsUpper) {
-					result.append(s.toUpperCase());
-					nextIsUpper = false;
-				} else {
-					result.append(s.toLowerCase());
+		String property = NESTED_PROPERTY_NAMES.get(name);
+		if (property == null) {
+			if (isBlank(name)) {
+				return null;
+			}
+
+			StringBuilder sb = new StringBuilder(name.length());
+			int start = 0;
+			while (start < name.length()) {
+				int end = name.indexOf('.', start);
+				if (end < 0) {
+					end = name.length();
 				}
+				if (end > start) {
+					String part = toPropertyName(name.substring(start, end));
+					if (part != null && !part.isEmpty()) {
+						if (sb.length() > 0) {
+							sb.append('.');
+						}
+						sb.append(part);
+					}
+				}
+				start = end + 1;
 			}
+			property = sb.toString();
+			cacheName(NESTED_PROPERTY_NAMES, name, property);
 		}
-		return result.toString();
+		return property;
 	}
 
-	public static String toNestedPropertyName(String name) {
-		if (Validators.isEmpty(name)) {
-			return null;
-		}
-		
-		String[] pros = name.split("\\.");
-		StringBuilder sb = new StringBuilder();
-		boolean first = true;
-		for (String str : pros) {
-			str = toPropertyName(str);
-			if (Validators.isEmpty(str)) {
-				continue;
-			}
-			
-			if (first) {
-				sb.append(str);
-				first = false;
+	/**
+	 * Convert a column name to a property name in one pass (e.g. EMPLOYEE_NAME to employeeName),
+	 * whitespaces are converted like an underscore and a valid property name is returned as is.
+	 */
+	private static String convertPropertyName(String name) {
+		int length = name.length();
+		char[] chars = new char[length];
+		int size = 0;
+		boolean space = false;
+		boolean replaced = false;
+		boolean underscore = false;
+		boolean lowerCase = true;
+		for (int i = 0; i < length; i++) {
+			char ch = name.charAt(i);
+			if (isWhitespace(ch)) {
+				replaced = true;
+				if (space) {
+					continue;
+				}
+				space = true;
+				ch = '_';
 			} else {
-				sb.append(".").append(str);
+				space = false;
+			}
+
+			if (ch == '_') {
+				underscore = true;
+			} else if (lowerCase && !Character.isLowerCase(ch) && !Character.isDigit(ch)) {
+				lowerCase = false;
 			}
+			chars[size++] = ch;
 		}
-	
-		return sb.toString();
-	}
-	
-	private static boolean isValidProperty(String value) {
-		if (value.contains("_")) {
-			return false;
+
+		char first = chars[0];
+		if (!underscore && (lowerCase || (!Character.isUpperCase(first) && !Character.isDigit(first)))) {
+			return (replaced ? new String(chars, 0, size) : name);
 		}
 
-		char[] chs = value.toCharArray();
-		if (isLowerCase(chs)) {
-			return true;
+		// convert in place, an output position is never after an input position
+		chars[0] = (size > 1 && chars[1] == '_' ? Character.toUpperCase(first) : Character.toLowerCase(first));
+		int position = 1;
+		boolean nextIsUpper = false;
+		for (int i = 1; i < size; i++) {
+			char ch = chars[i];
+			if (ch == '_') {
+				nextIsUpper = true;
+			} else if (nextIsUpper) {
+				chars[position++] = Character.toUpperCase(ch);
+				nextIsUpper = false;
+			} else {
+				chars[position++] = Character.toLowerCase(ch);
+			}
 		}
+		return new String(chars, 0, position);
+	}
 
-		return isCamelCase(chs);
+	private static boolean isWhitespace(char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
 	}
 
-	private static boolean isLowerCase(char[] chs) {
-		for (char ch : chs) {
-			if (!Character.isLowerCase(ch) && !Character.isDigit(ch)) {
+	private static boolean isBlank(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > ' ') {
 				return false;
 			}
 		}
-
 		return true;
 	}
 
-	private static boolean isCamelCase(char[] chs) {
-		for (int i = 0; i < chs.length; i++) {
-			char ch = chs[i];
-			if (i == 0 && (Character.isUpperCase(ch) || Character.isDigit(ch))) {
-				return false;
-			}
+	private static void cacheName(Map<String, String> cache, String name, String value) {
+		if (cache.size() >= MAX_CACHED_NAMES) {
+			cache.clear();
 		}
-
-		return true;
+		cache.put(name, value);
 	}
 
 	public static Map<String, String> toPropertyName(ResultSetMetaData rsMeta) throws SQLException {
@@ -594,49 +807,171 @@ public final class JdbcUtils {
 	}
 
 	public static String toClassName(String name) {
-		String className = toPropertyName(name);
-		if (className == null || className.isEmpty()) {
+		if (name == null) {
 			return null;
 		}
-		className = String.valueOf(className.charAt(0)).toUpperCase() + className.substring(1);
 
+		String className = CLASS_NAMES.get(name);
+		if (className == null) {
+			String property = toPropertyName(name);
+			if (property == null || property.isEmpty()) {
+				return null;
+			}
+
+			char first = property.charAt(0);
+			char upper = Character.toUpperCase(first);
+			className = (first == upper ? property : upper + property.substring(1));
+			cacheName(CLASS_NAMES, name, className);
+		}
 		return className;
 	}
 
 	public static String toHeaderName(String columnName) {
-		if (Validators.isEmpty(columnName)) {
+		if (columnName == null) {
 			return null;
 		}
 
-		String[] names = columnName.toLowerCase().split("_");
-		if (Validators.isEmpty(names)) {
-			return null;
-		}
+		String header = HEADER_NAMES.get(columnName);
+		if (header == null) {
+			if (isBlank(columnName)) {
+				return null;
+			}
 
-		StringBuilder sb = new StringBuilder(64);
-		for (String name : names) {
-			char[] chars = name.toCharArray();
-			for (int i = 0, size = chars.length; i < size; i++) {
-				if (i == 0) {
-					sb.append(String.valueOf(chars[i]).toUpperCase());
+			// trailing underscores are ignored, a name of underscores only has no header
+			int end = columnName.length();
+			while (end > 0 && columnName.charAt(end - 1) == '_') {
+				end--;
+			}
+			if (end == 0) {
+				return null;
+			}
+
+			char[] chars = new char[end + 1];
+			boolean wordStart = true;
+			for (int i = 0; i < end; i++) {
+				char ch = columnName.charAt(i);
+				if (ch == '_') {
+					chars[i] = ' ';
+					wordStart = true;
 				} else {
-					sb.append(chars[i]);
+					ch = Character.toLowerCase(ch);
+					chars[i] = (wordStart ? Character.toUpperCase(ch) : ch);
+					wordStart = false;
 				}
 			}
-			sb.append(" ");
+			chars[end] = ' ';
+			header = new String(chars);
+			cacheName(HEADER_NAMES, columnName, header);
 		}
-
-		return sb.toString();
+		return header;
 	}
 
+	/**
+	 * Read current row to Map, keys are column names of a columns Map (e.g. {@link #toPropertyName(ResultSetMetaData)}).
+	 * Rows of the same ResultSet and columns Map (read by the same thread) share column positions,
+	 * each row keep only an array of values. Use {@link RowMap#read(ResultSet, RowMap.Columns)} to share
+	 * columns explicitly.
+	 * @param rs JDBC ResultSet
+	 * @param columns The columns, keys are column names
+	 * @return The row values
+	 * @throws SQLException When a column not found or cannot read a value
+	 */
 	public static Map<String, Object> resultSetToMap(ResultSet rs, Map<String, String> columns) throws SQLException {
+		RowColumns cached = LAST_ROW_COLUMNS.get();
+		RowMap.Columns rowColumns;
+		if (cached != null && cached.matches(rs, columns)) {
+			rowColumns = cached.columns;
+		} else {
+			rowColumns = RowMap.Columns.of(rs, columns.keySet());
+			LAST_ROW_COLUMNS.set(new RowColumns(rs, columns, rowColumns));
+		}
+
+		return RowMap.read(rs, rowColumns);
+	}
+
+	/**
+	 * Read all remaining rows to Map, keys are column labels
+	 * @param rs JDBC ResultSet
+	 * @return The rows
+	 * @throws SQLException When cannot read ResultSet
+	 */
+	public static List<Map<String, Object>> resultSetToMaps(ResultSet rs) throws SQLException {
+		return RowMap.readAll(rs);
+	}
+
+	private static long copy(InputStream input, OutputStream output, byte[] buffer) throws IOException {
+		long count = 0L;
+		int n;
+		while ((n = input.read(buffer, 0, buffer.length)) != -1) {
+			output.write(buffer, 0, n);
+			count += n;
+		}
+		return count;
+	}
+
+	private static int readFully(InputStream input, byte[] buffer, int length) throws IOException {
+		int total = 0;
+		while (total < length) {
+			int n = input.read(buffer, total, length - total);
+			if (n == -1) {
+				break;
+			}
+			total += n;
+		}
+		return total;
+	}
 
-		Map<String, Object> results = new HashMap<>();
-		for (Map.Entry<String, String> map : columns.entrySet()) {
-			results.put(map.getKey(), rs.getObject(map.getKey()));
+	private static int encodeBase64(byte[] src, int length, char[] dst) {
+		int di = 0;
+		int si = 0;
+		int end = length - (length % 3);
+		while (si < end) {
+			int bits = (src[si++] & 0xff) << 16 | (src[si++] & 0xff) << 8 | (src[si++] & 0xff);
+			dst[di++] = BASE64_CHARS[(bits >>> 18) & 0x3f];
+			dst[di++] = BASE64_CHARS[(bits >>> 12) & 0x3f];
+			dst[di++] = BASE64_CHARS[(bits >>> 6) & 0x3f];
+			dst[di++] = BASE64_CHARS[bits & 0x3f];
 		}
 
-		return results;
+		int remain = length - end;
+		if (remain > 0) {
+			int b0 = src[si++] & 0xff;
+			dst[di++] = BASE64_CHARS[b0 >> 2];
+			if (remain == 1) {
+				dst[di++] = BASE64_CHARS[(b0 << 4) & 0x3f];
+				dst[di++] = '=';
+			} else {
+				int b1 = src[si] & 0xff;
+				dst[di++] = BASE64_CHARS[(b0 << 4) & 0x3f | (b1 >> 4)];
+				dst[di++] = BASE64_CHARS[(b1 << 2) & 0x3f];
+			}
+			dst[di++] = '=';
+		}
+		return di;
+	}
+
+	/**
+	 * Free a Clob, an error and a driver without free() (JDBC 3.0) are ignored
+	 * @param clob The Clob
+	 */
+	public static void freeQuietly(Clob clob) {
+		try {
+			clob.free();
+		} catch (SQLException | AbstractMethodError ex) {
+			//Ignore
+		}
+	}
+
+	/**
+	 * Free a Blob, an error and a driver without free() (JDBC 3.0) are ignored
+	 * @param blob The Blob
+	 */
+	public static void freeQuietly(Blob blob) {
+		try {
+			blob.free();
+		} catch (SQLException | AbstractMethodError ex) {
+			//Ignore
+		}
 	}
 
 	public static boolean isTypeDate(int type) {
@@ -691,13 +1026,40 @@ public final class JdbcUtils {
 		}
 	}
 
+	/**
+	 * Escape LIKE wildcard characters (%, _) and an escape character (!) with '!',
+	 * use together with {@link #getEscapeChar(String)} or ESCAPE '!'
+	 * @param value The value
+	 * @return The escaped value, the same instance when nothing to escape
+	 */
 	public static String escapeChar(String value) {
-		return value;
+		if (value == null) {
+			return null;
+		}
+
+		int length = value.length();
+		StringBuilder sb = null;
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			char ch = value.charAt(i);
+			if (isLikeSpecialChar(ch)) {
+				if (sb == null) {
+					sb = new StringBuilder(length + 8);
+				}
+				sb.append(value, start, i).append(ESC_CHAR).append(ch);
+				start = i + 1;
+			}
+		}
+
+		if (sb == null) {
+			return value;
+		}
+		return sb.append(value, start, length).toString();
 	}
 
 	public static String getEscapeChar(String value) {
 		if (isEscapeChar(value)) {
-			return " escape \'" + ESC_CHAR + "\'";
+			return ESC_CLAUSE;
 		}
 		return "";
 	}
@@ -707,14 +1069,18 @@ public final class JdbcUtils {
 			return false;
 		}
 
-		for (String str : ESC_CHARS) {
-			if (value.contains(str)) {
+		for (int i = 0; i < value.length(); i++) {
+			if (isLikeSpecialChar(value.charAt(i))) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	private static boolean isLikeSpecialChar(char ch) {
+		return ch == ESC_CHAR || ch == '_' || ch == '%';
+	}
+
 	public static String sqlFullLike(String value) {
 		return "%" + escapeChar(value) + "%";
 	}
@@ -727,6 +1093,38 @@ public final class JdbcUtils {
 		return "%" + escapeChar(value);
 	}
 
+	/**
+	 * Last columns of resultSetToMap of a thread, ResultSet and columns Map are weak references
+	 */
+	private static final class RowColumns {
+		private final WeakReference<ResultSet> rs;
+		private final WeakReference<Map<String, String>> source;
+		private final RowMap.Columns columns;
+
+		private RowColumns(ResultSet rs, Map<String, String> source, RowMap.Columns columns) {
+			this.rs = new WeakReference<>(rs);
+			this.source = new WeakReference<>(source);
+			this.columns = columns;
+		}
+
+		/**
+		 * Check a same ResultSet and columns Map, keys of the Map are compared (the Map may be changed)
+		 */
+		private boolean matches(ResultSet resultSet, Map<String, String> columnMap) {
+			if (rs.get() != resultSet || source.get() != columnMap || columns.size() != columnMap.size()) {
+				return false;
+			}
+
+			int i = 0;
+			for (String key : columnMap.keySet()) {
+				if (!columns.getName(i++).equals(key)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
 	public static final class ColumnType {
 		private int type;
 		private int digit;
@@ -807,4 +1205,21 @@ public final class JdbcUtils {
 			this.digit = digit;
 		}
 	}
+
+	private static final class NonClosingOutputStream extends FilterOutputStream {
+
+		private NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
 }
@@ -0,0 +1,218 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe LRU cache with a maximum size and an optional time to live.
+ * Null values are never cached.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class BoundedCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, CacheEntry<V>> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Create cache without expiration
+     * @param maxSize The maximum number of entries
+     */
+    public BoundedCache(int maxSize) {
+        this(maxSize, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create cache with expiration
+     * @param maxSize The maximum number of entries
+     * @param ttl The time to live after an entry was written, zero or negative never expire
+     * @param unit The unit of ttl
+     */
+    public BoundedCache(int maxSize, long ttl, TimeUnit unit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be more than zero");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = (ttl > 0 ? unit.toNanos(ttl) : 0L);
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(Math.min(maxSize, 256), 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get cached value
+     * @param key The cache key
+     * @return The cached value or null when not present or expired
+     */
+    public V get(K key) {
+        V value = lookup(key);
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Get cached value, When not present load value with a loader and cache it.
+     * The loader is called outside the cache lock, concurrent misses may load the same key more than once.
+     * @param key The cache key
+     * @param loader The value loader
+     * @return The value or null when a loader return null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = lookup(key);
+        if (value != null) {
+            hitCount.increment();
+            return value;
+        }
+
+        missCount.increment();
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(key, new CacheEntry<>(value, System.nanoTime()));
+        }
+    }
+
+    public V remove(K key) {
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.remove(key);
+            return (entry == null ? null : entry.value);
+        }
+    }
+
+    /**
+     * Remove all entries which key match a filter
+     * @param filter The key filter
+     * @return Number of removed entries
+     */
+    public int removeIf(Predicate<? super K> filter) {
+        int count = 0;
+        synchronized (entries) {
+            Iterator<K> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (filter.test(it.next())) {
+                    it.remove();
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public void resetStatistics() {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache [size=" + size() + ", maxSize=" + maxSize + ", hitCount=" + getHitCount()
+                + ", missCount=" + getMissCount() + ", evictionCount=" + getEvictionCount() + "]";
+    }
+
+    private V lookup(K key) {
+        if (key == null) {
+            return null;
+        }
+
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (ttlNanos > 0 && System.nanoTime() - entry.created > ttlNanos) {
+                entries.remove(key);
+                evictionCount.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long created;
+
+        private CacheEntry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.fotmat;
+
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of date formatters by pattern and locale, a pattern is compiled once instead of every call.
+ * <ul>
+ *     <li>{@link DateTimeFormatter} is immutable and shared by all threads</li>
+ *     <li>{@link SimpleDateFormat} is not thread-safe, each thread has its own instances</li>
+ * </ul>
+ * Both caches are bounded, a cache of arbitrary patterns is cleared (shared) or evict a least recently used
+ * formatter (per thread) when it is full.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class DateFormatters {
+    public static final int MAX_FORMATTERS = 256;
+    public static final int MAX_THREAD_FORMATS = 32;
+
+    private static final Map<FormatKey, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<FormatKey, SimpleDateFormat>> DATE_FORMATS =
+            ThreadLocal.withInitial(DateFormatters::newThreadCache);
+
+    private DateFormatters() {
+    }
+
+    /**
+     * Get formatter of a pattern and a default format locale (same as DateTimeFormatter.ofPattern(pattern))
+     * @param pattern The pattern
+     * @return The shared formatter
+     * @throws IllegalArgumentException When a pattern is invalid
+     */
+    public static DateTimeFormatter get(String pattern) {
+        return get(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Get formatter of a pattern and a locale (same as DateTimeFormatter.ofPattern(pattern, locale))
+     * @param pattern The pattern
+     * @param locale The locale
+     * @return The shared formatter
+     * @throws IllegalArgumentException When a pattern is invalid
+     */
+    public static DateTimeFormatter get(String pattern, Locale locale) {
+        FormatKey key = new FormatKey(pattern, locale);
+        DateTimeFormatter formatter = FORMATTERS.get(key);
+        if (formatter == null) {
+            formatter = DateTimeFormatter.ofPattern(pattern, locale);
+            if (FORMATTERS.size() >= MAX_FORMATTERS) {
+                FORMATTERS.clear();
+            }
+            FORMATTERS.put(key, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Get non-lenient SimpleDateFormat of a current thread, a format must not be modified or passed to other threads.
+     * A time zone is a current default time zone.
+     * @param pattern The pattern
+     * @param locale The locale
+     * @return The format of a current thread
+     * @throws IllegalArgumentException When a pattern is invalid
+     */
+    public static SimpleDateFormat simpleDateFormat(String pattern, Locale locale) {
+        Map<FormatKey, SimpleDateFormat> formats = DATE_FORMATS.get();
+        FormatKey key = new FormatKey(pattern, locale);
+        SimpleDateFormat format = formats.get(key);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern, locale);
+            format.setLenient(false);
+            formats.put(key, format);
+        } else {
+            // a default time zone can be changed after a format is created
+            TimeZone zone = TimeZone.getDefault();
+            if (!zone.getID().equals(format.getTimeZone().getID())) {
+                format.setTimeZone(zone);
+            }
+        }
+        return format;
+    }
+
+    public static void clearCache() {
+        FORMATTERS.clear();
+        DATE_FORMATS.remove();
+    }
+
+    private static Map<FormatKey, SimpleDateFormat> newThreadCache() {
+        return new LinkedHashMap<FormatKey, SimpleDateFormat>(16, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FormatKey, SimpleDateFormat> eldest) {
+                return size() > MAX_THREAD_FORMATS;
+            }
+        };
+    }
+
+    private static final class FormatKey {
+        private final String pattern;
+        private final Locale locale;
+        private final int hash;
+
+        private FormatKey(String pattern, Locale locale) {
+            this.pattern = Objects.requireNonNull(pattern, "pattern");
+            this.locale = Objects.requireNonNull(locale, "locale");
+            this.hash = 31 * pattern.hashCode() + locale.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey other = (FormatKey) obj;
+            return pattern.equals(other.pattern) && locale.equals(other.locale);
+        }
+    }
+}
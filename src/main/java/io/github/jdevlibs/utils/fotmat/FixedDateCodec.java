@@ -0,0 +1,441 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.fotmat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+
+/**
+ * Parse and format the common fixed date patterns directly from/to characters, without a formatter.
+ * <ul>
+ *     <li>{@link #DATE} dd/MM/yyyy</li>
+ *     <li>{@link #DATE_TIME} dd/MM/yyyy HH:mm:ss</li>
+ *     <li>{@link #TIME} HH:mm:ss</li>
+ *     <li>ISO local date time, same as {@link java.time.format.DateTimeFormatter#ISO_LOCAL_DATE_TIME}
+ *     for a 4 digits year</li>
+ * </ul>
+ * A result is same as DateTimeFormatter.ofPattern(pattern) (ISO chronology, ASCII digits).
+ * A text which is not an exact shape or a value out of range is not parsed (null), a value which cannot be
+ * written by a pattern (e.g. a year after 9999) is not formatted (false or -1), a caller should use a formatter
+ * in these cases.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class FixedDateCodec {
+    public static final String DATE = "dd/MM/yyyy";
+    public static final String DATE_TIME = "dd/MM/yyyy HH:mm:ss";
+    public static final String TIME = "HH:mm:ss";
+
+    public static final int DATE_LENGTH = 10;
+    public static final int DATE_TIME_LENGTH = 19;
+    public static final int TIME_LENGTH = 8;
+    /** Maximum length of ISO local date time, yyyy-MM-ddTHH:mm:ss.SSSSSSSSS */
+    public static final int ISO_DATE_TIME_MAX_LENGTH = 29;
+
+    private static final int MAX_YEAR = 9999;
+
+    private FixedDateCodec() {
+    }
+
+    /**
+     * Check a pattern can be formatted and parsed by this codec
+     * @param pattern The pattern
+     * @return true when a pattern is {@link #DATE}, {@link #DATE_TIME} or {@link #TIME}
+     */
+    public static boolean isSupported(String pattern) {
+        return DATE.equals(pattern) || DATE_TIME.equals(pattern) || TIME.equals(pattern);
+    }
+
+    /**
+     * Parse dd/MM/yyyy at an offset, characters after a date are not checked
+     * @param text The text
+     * @param offset The offset of a first character
+     * @return The date, null when a text is other shape or a date is invalid
+     */
+    public static LocalDate parseDate(CharSequence text, int offset) {
+        return parseDate(text, offset, 0);
+    }
+
+    /**
+     * Parse dd/MM/yyyy of a calendar which year is an ISO year plus an offset (e.g. 543 of Buddhist era)
+     */
+    static LocalDate parseDate(CharSequence text, int offset, int yearOffset) {
+        if (text.length() - offset < DATE_LENGTH || text.charAt(offset + 2) != '/'
+                || text.charAt(offset + 5) != '/') {
+            return null;
+        }
+
+        int day = digits(text, offset, 2);
+        int month = digits(text, offset + 3, 2);
+        int year = digits(text, offset + 6, 4);
+        if (year < 1 || !isValidDate(year - yearOffset, month, day)) {
+            return null;
+        }
+        return LocalDate.of(year - yearOffset, month, day);
+    }
+
+    /**
+     * Parse yyyy-MM-dd at an offset (ISO local date of a 4 digits year), characters after a date are not checked
+     * @param text The text
+     * @param offset The offset of a first character
+     * @return The date, null when a text is other shape or a date is invalid
+     */
+    public static LocalDate parseIsoDate(CharSequence text, int offset) {
+        if (text.length() - offset < DATE_LENGTH || text.charAt(offset + 4) != '-'
+                || text.charAt(offset + 7) != '-') {
+            return null;
+        }
+
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        if (year < 0 || !isValidDate(year, month, day)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Parse dd/MM/yyyy HH:mm:ss at an offset, characters after a date time are not checked
+     * @param text The text
+     * @param offset The offset of a first character
+     * @return The date time, null when a text is other shape or a value is invalid
+     */
+    public static LocalDateTime parseDateTime(CharSequence text, int offset) {
+        return parseDateTime(text, offset, 0);
+    }
+
+    static LocalDateTime parseDateTime(CharSequence text, int offset, int yearOffset) {
+        if (text.length() - offset < DATE_TIME_LENGTH || text.charAt(offset + 2) != '/'
+                || text.charAt(offset + 5) != '/' || text.charAt(offset + DATE_LENGTH) != ' ') {
+            return null;
+        }
+
+        int day = digits(text, offset, 2);
+        int month = digits(text, offset + 3, 2);
+        int year = digits(text, offset + 6, 4);
+        int second = parseTimeOfDay(text, offset + DATE_LENGTH + 1);
+        if (year < 1 || second < 0 || !isValidDate(year - yearOffset, month, day)) {
+            return null;
+        }
+        return LocalDateTime.of(year - yearOffset, month, day, second / 3600, second / 60 % 60, second % 60);
+    }
+
+    /**
+     * Parse HH:mm:ss at an offset, characters after a time are not checked
+     * @param text The text
+     * @param offset The offset of a first character
+     * @return The time, null when a text is other shape or a time is invalid
+     */
+    public static LocalTime parseTime(CharSequence text, int offset) {
+        if (text.length() - offset < TIME_LENGTH) {
+            return null;
+        }
+
+        int second = parseTimeOfDay(text, offset);
+        return (second < 0 ? null : LocalTime.ofSecondOfDay(second));
+    }
+
+    /**
+     * Parse ISO local date time yyyy-MM-ddTHH:mm[:ss[.[S-SSSSSSSSS]]] between offsets, a whole range must be
+     * a date time. An upper case 'T' is only accepted.
+     * @param text The text
+     * @param offset The offset of a first character
+     * @param end The offset after a last character
+     * @return The date time, null when a text is other shape or a value is invalid
+     */
+    public static LocalDateTime parseIsoDateTime(CharSequence text, int offset, int end) {
+        int length = end - offset;
+        if (length < 16 || length > ISO_DATE_TIME_MAX_LENGTH || length == 17 || length == 18
+                || text.charAt(offset + 4) != '-' || text.charAt(offset + 7) != '-'
+                || text.charAt(offset + DATE_LENGTH) != 'T' || text.charAt(offset + 13) != ':') {
+            return null;
+        }
+
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (text.charAt(offset + 16) != ':') {
+                return null;
+            }
+            second = digits(text, offset + 17, 2);
+        }
+        if (length > 19) {
+            if (text.charAt(offset + 19) != '.') {
+                return null;
+            }
+            int count = length - 20;
+            nano = digits(text, offset + 20, count);
+            for (int i = count; i < 9 && nano >= 0; i++) {
+                nano *= 10;
+            }
+        }
+
+        if (year < 0 || nano < 0 || !isValidDate(year, month, day) || !isValidTime(hour, minute, second)) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Append dd/MM/yyyy
+     * @param date The date
+     * @param builder The output
+     * @return true when a date is written, false when a year is not 1-9999
+     */
+    public static boolean formatDate(LocalDate date, StringBuilder builder) {
+        return formatDate(date, builder, 0);
+    }
+
+    /**
+     * Append dd/MM/yyyy of a calendar which year is an ISO year plus an offset (e.g. 543 of Buddhist era)
+     */
+    static boolean formatDate(LocalDate date, StringBuilder builder, int yearOffset) {
+        int year = date.getYear() + yearOffset;
+        if (year < 1 || year > MAX_YEAR) {
+            return false;
+        }
+
+        append2(builder, date.getDayOfMonth()).append('/');
+        append2(builder, date.getMonthValue()).append('/');
+        append4(builder, year);
+        return true;
+    }
+
+    /**
+     * Write dd/MM/yyyy, a buffer must have {@link #DATE_LENGTH} characters from an offset
+     * @param date The date
+     * @param buffer The output
+     * @param offset The offset of a first character
+     * @return The offset after a last character, -1 when a year is not 1-9999
+     */
+    public static int formatDate(LocalDate date, char[] buffer, int offset) {
+        int year = date.getYear();
+        if (year < 1 || year > MAX_YEAR) {
+            return -1;
+        }
+
+        write2(buffer, offset, date.getDayOfMonth());
+        buffer[offset + 2] = '/';
+        write2(buffer, offset + 3, date.getMonthValue());
+        buffer[offset + 5] = '/';
+        write4(buffer, offset + 6, year);
+        return offset + DATE_LENGTH;
+    }
+
+    /**
+     * Append dd/MM/yyyy HH:mm:ss
+     * @param dateTime The date time
+     * @param builder The output
+     * @return true when a date time is written, false when a year is not 1-9999
+     */
+    public static boolean formatDateTime(LocalDateTime dateTime, StringBuilder builder) {
+        return formatDateTime(dateTime, builder, 0);
+    }
+
+    static boolean formatDateTime(LocalDateTime dateTime, StringBuilder builder, int yearOffset) {
+        if (!formatDate(dateTime.toLocalDate(), builder, yearOffset)) {
+            return false;
+        }
+
+        builder.append(' ');
+        formatTime(dateTime.toLocalTime(), builder);
+        return true;
+    }
+
+    /**
+     * Write dd/MM/yyyy HH:mm:ss, a buffer must have {@link #DATE_TIME_LENGTH} characters from an offset
+     * @param dateTime The date time
+     * @param buffer The output
+     * @param offset The offset of a first character
+     * @return The offset after a last character, -1 when a year is not 1-9999
+     */
+    public static int formatDateTime(LocalDateTime dateTime, char[] buffer, int offset) {
+        int position = formatDate(dateTime.toLocalDate(), buffer, offset);
+        if (position < 0) {
+            return -1;
+        }
+
+        buffer[position] = ' ';
+        return formatTime(dateTime.toLocalTime(), buffer, position + 1);
+    }
+
+    /**
+     * Append HH:mm:ss, a fraction of second is not written
+     * @param time The time
+     * @param builder The output
+     */
+    public static void formatTime(LocalTime time, StringBuilder builder) {
+        append2(builder, time.getHour()).append(':');
+        append2(builder, time.getMinute()).append(':');
+        append2(builder, time.getSecond());
+    }
+
+    /**
+     * Write HH:mm:ss, a buffer must have {@link #TIME_LENGTH} characters from an offset
+     * @param time The time
+     * @param buffer The output
+     * @param offset The offset of a first character
+     * @return The offset after a last character
+     */
+    public static int formatTime(LocalTime time, char[] buffer, int offset) {
+        write2(buffer, offset, time.getHour());
+        buffer[offset + 2] = ':';
+        write2(buffer, offset + 3, time.getMinute());
+        buffer[offset + 5] = ':';
+        write2(buffer, offset + 6, time.getSecond());
+        return offset + TIME_LENGTH;
+    }
+
+    /**
+     * Write ISO local date time yyyy-MM-ddTHH:mm:ss and a fraction of second without trailing zeros when it is
+     * not zero, a buffer must have {@link #ISO_DATE_TIME_MAX_LENGTH} characters from an offset
+     * @param dateTime The date time
+     * @param buffer The output
+     * @param offset The offset of a first character
+     * @return The offset after a last character, -1 when a year is not 0-9999
+     */
+    public static int formatIsoDateTime(LocalDateTime dateTime, char[] buffer, int offset) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > MAX_YEAR) {
+            return -1;
+        }
+
+        write4(buffer, offset, year);
+        buffer[offset + 4] = '-';
+        write2(buffer, offset + 5, dateTime.getMonthValue());
+        buffer[offset + 7] = '-';
+        write2(buffer, offset + 8, dateTime.getDayOfMonth());
+        buffer[offset + DATE_LENGTH] = 'T';
+        int position = formatTime(dateTime.toLocalTime(), buffer, offset + DATE_LENGTH + 1);
+
+        int nano = dateTime.getNano();
+        if (nano == 0) {
+            return position;
+        }
+        buffer[position++] = '.';
+        int count = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            count--;
+        }
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + nano % 10);
+            nano /= 10;
+        }
+        return position + count;
+    }
+
+    /**
+     * Append ISO local date time, same as {@link #formatIsoDateTime(LocalDateTime, char[], int)}
+     * @param dateTime The date time
+     * @param builder The output
+     * @return true when a date time is written, false when a year is not 0-9999
+     */
+    public static boolean formatIsoDateTime(LocalDateTime dateTime, StringBuilder builder) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > MAX_YEAR) {
+            return false;
+        }
+
+        append4(builder, year).append('-');
+        append2(builder, dateTime.getMonthValue()).append('-');
+        append2(builder, dateTime.getDayOfMonth()).append('T');
+        formatTime(dateTime.toLocalTime(), builder);
+
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            builder.append('.');
+            for (int unit = 100_000_000; nano != 0; unit /= 10) {
+                builder.append((char) ('0' + nano / unit));
+                nano %= unit;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse HH:mm:ss
+     * @return The second of day, -1 when a text is other shape or a time is invalid
+     */
+    private static int parseTimeOfDay(CharSequence text, int offset) {
+        if (text.charAt(offset + 2) != ':' || text.charAt(offset + 5) != ':') {
+            return -1;
+        }
+
+        int hour = digits(text, offset, 2);
+        int minute = digits(text, offset + 3, 2);
+        int second = digits(text, offset + 6, 2);
+        if (!isValidTime(hour, minute, second)) {
+            return -1;
+        }
+        return hour * 3600 + minute * 60 + second;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= 28 || day <= YearMonth.of(year, month).lengthOfMonth();
+    }
+
+    private static boolean isValidTime(int hour, int minute, int second) {
+        return hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    /**
+     * Read ASCII digits
+     * @return The number, -1 when a character is not a digit
+     */
+    private static int digits(CharSequence text, int offset, int count) {
+        int result = 0;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static StringBuilder append2(StringBuilder builder, int value) {
+        return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private static StringBuilder append4(StringBuilder builder, int value) {
+        append2(builder, value / 100);
+        return append2(builder, value % 100);
+    }
+
+    private static void write2(char[] buffer, int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void write4(char[] buffer, int offset, int value) {
+        write2(buffer, offset, value / 100);
+        write2(buffer, offset + 2, value % 100);
+    }
+}
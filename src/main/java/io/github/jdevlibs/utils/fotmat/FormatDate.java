@@ -5,9 +5,7 @@
  */
 package io.github.jdevlibs.utils.fotmat;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -25,7 +23,8 @@ public class FormatDate {
 	private static final String DF = "dd/MM/yyyy";
 	
     private DateTimeFormatter format;
-    private DateFormat fmt;
+    private String pattern;
+    private Locale locale;
     
     public FormatDate() {
         this(DF, Locale.US);
@@ -53,7 +52,7 @@ public class FormatDate {
 			if (value == null || value.isEmpty()) {
 				return null;
 			}
-			return fmt.parse(value);
+			return DateFormatters.simpleDateFormat(pattern, locale).parse(value);
 		} catch (ParseException ex) {
 			return null;
 		}
@@ -95,7 +94,7 @@ public class FormatDate {
 			if (date == null) {
 				return "";
 			}
-			return fmt.format(date);
+			return DateFormatters.simpleDateFormat(pattern, locale).format(date);
 		} catch (Exception ex) {
 			return "";
 		}		
@@ -142,8 +141,8 @@ public class FormatDate {
             locale = Locale.US;
         }
         
-        format = DateTimeFormatter.ofPattern(pattern).withLocale(locale);
-        fmt = new SimpleDateFormat(pattern, locale);
-        fmt.setLenient(false);
+        format = DateFormatters.get(pattern, locale);
+        this.pattern = pattern;
+        this.locale = locale;
     }
 }
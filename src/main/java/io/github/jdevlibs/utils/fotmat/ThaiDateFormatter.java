@@ -0,0 +1,341 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.fotmat;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.chrono.ThaiBuddhistChronology;
+import java.time.chrono.ThaiBuddhistDate;
+import java.time.chrono.ThaiBuddhistEra;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.SignStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Format and parse Thai dates (Buddhist era year, Thai month and day names) with {@link ThaiBuddhistChronology},
+ * a result is same as SimpleDateFormat of a Thai locale without converting a value to Date.
+ * <pre>
+ * ThaiDateFormatter.format(LocalDate.of(2021, 3, 9), "d MMMM yyyy");        // 9 มีนาคม 2564
+ * ThaiDateFormatter.parseDate("09/03/2564", "dd/MM/yyyy");                // 2021-03-09
+ * </pre>
+ * Pattern letters are letters of SimpleDateFormat: G y M d E a H k K h m s S and quoted text.
+ * Month, day of week, am/pm and era names are read once from SimpleDateFormat, formatters are cached by pattern.
+ * dd/MM/yyyy and dd/MM/yyyy HH:mm:ss are written and read without a formatter.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class ThaiDateFormatter {
+    public static final Locale THAI = new Locale("th", "TH");
+    /** Buddhist era year is ISO year plus 543 */
+    public static final int YEAR_OFFSET = 543;
+    public static final int MAX_FORMATTERS = 256;
+
+    private static final String SUPPORTED_LETTERS = "GyMdEaHkKhmsS";
+    private static final Map<Long, String> MONTHS = new HashMap<>();
+    private static final Map<Long, String> SHORT_MONTHS = new HashMap<>();
+    private static final Map<Long, String> DAYS = new HashMap<>();
+    private static final Map<Long, String> SHORT_DAYS = new HashMap<>();
+    private static final Map<Long, String> AM_PM = new HashMap<>();
+    private static final Map<Long, String> ERAS = new HashMap<>();
+    private static final Map<Long, String> LONG_ERAS = new HashMap<>();
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    static {
+        SimpleDateFormat month = new SimpleDateFormat("MMMM", THAI);
+        SimpleDateFormat shortMonth = new SimpleDateFormat("MMM", THAI);
+        for (int i = 0; i < 12; i++) {
+            Calendar calendar = new GregorianCalendar(2020, i, 15, 10, 0);
+            MONTHS.put(i + 1L, month.format(calendar.getTime()));
+            SHORT_MONTHS.put(i + 1L, shortMonth.format(calendar.getTime()));
+        }
+
+        // 6 January 2020 is Monday, a first day of ISO week
+        SimpleDateFormat day = new SimpleDateFormat("EEEE", THAI);
+        SimpleDateFormat shortDay = new SimpleDateFormat("EEE", THAI);
+        for (int i = 0; i < 7; i++) {
+            Calendar calendar = new GregorianCalendar(2020, Calendar.JANUARY, 6 + i, 10, 0);
+            DAYS.put(i + 1L, day.format(calendar.getTime()));
+            SHORT_DAYS.put(i + 1L, shortDay.format(calendar.getTime()));
+        }
+
+        SimpleDateFormat amPm = new SimpleDateFormat("a", THAI);
+        AM_PM.put(0L, amPm.format(new GregorianCalendar(2020, Calendar.JANUARY, 6, 0, 0).getTime()));
+        AM_PM.put(1L, amPm.format(new GregorianCalendar(2020, Calendar.JANUARY, 6, 12, 0).getTime()));
+
+        SimpleDateFormat era = new SimpleDateFormat("G", THAI);
+        SimpleDateFormat longEra = new SimpleDateFormat("GGGG", THAI);
+        ThaiBuddhistEra beforeBe = ThaiBuddhistEra.BEFORE_BE;
+        Calendar eraDate = new GregorianCalendar(2020, Calendar.JANUARY, 6);
+        ERAS.put((long) ThaiBuddhistEra.BE.getValue(), era.format(eraDate.getTime()));
+        ERAS.put((long) beforeBe.getValue(), beforeBe.getDisplayName(TextStyle.SHORT, THAI));
+        LONG_ERAS.put((long) ThaiBuddhistEra.BE.getValue(), longEra.format(eraDate.getTime()));
+        LONG_ERAS.put((long) beforeBe.getValue(), beforeBe.getDisplayName(TextStyle.FULL, THAI));
+    }
+
+    private ThaiDateFormatter() {
+    }
+
+    /**
+     * Check all pattern letters are supported
+     * @param pattern The pattern
+     * @return true when a pattern can be used by this formatter
+     */
+    public static boolean isSupported(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return false;
+        }
+
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && isLetter(ch) && SUPPORTED_LETTERS.indexOf(ch) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a cached formatter of a pattern, the formatter use ThaiBuddhistChronology and Thai names
+     * @param pattern The pattern
+     * @return The shared formatter
+     * @throws IllegalArgumentException When a pattern is invalid or has unsupported letters
+     */
+    public static DateTimeFormatter get(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter == null) {
+            formatter = create(pattern);
+            if (FORMATTERS.size() >= MAX_FORMATTERS) {
+                FORMATTERS.clear();
+            }
+            FORMATTERS.put(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Format a date, time fields are midnight (same as formatting a Date of a date)
+     * @param date The date
+     * @param pattern The pattern
+     * @return The formatted text
+     * @throws IllegalArgumentException When a pattern is invalid or has unsupported letters
+     */
+    public static String format(LocalDate date, String pattern) {
+        if (FixedDateCodec.DATE.equals(pattern)) {
+            StringBuilder builder = new StringBuilder(FixedDateCodec.DATE_LENGTH);
+            if (FixedDateCodec.formatDate(date, builder, YEAR_OFFSET)) {
+                return builder.toString();
+            }
+        }
+        return format(date.atStartOfDay(), pattern);
+    }
+
+    /**
+     * Format a date time
+     * @param dateTime The date time
+     * @param pattern The pattern
+     * @return The formatted text
+     * @throws IllegalArgumentException When a pattern is invalid or has unsupported letters
+     */
+    public static String format(LocalDateTime dateTime, String pattern) {
+        StringBuilder builder = new StringBuilder(FixedDateCodec.DATE_TIME_LENGTH);
+        if (FixedDateCodec.DATE_TIME.equals(pattern)) {
+            if (FixedDateCodec.formatDateTime(dateTime, builder, YEAR_OFFSET)) {
+                return builder.toString();
+            }
+        } else if (FixedDateCodec.DATE.equals(pattern)) {
+            if (FixedDateCodec.formatDate(dateTime.toLocalDate(), builder, YEAR_OFFSET)) {
+                return builder.toString();
+            }
+        }
+        return get(pattern).format(dateTime);
+    }
+
+    /**
+     * Parse a Thai date text to ISO date
+     * @param text The text (e.g. 09/03/2564)
+     * @param pattern The pattern
+     * @return The date, null when a text cannot be parsed
+     * @throws IllegalArgumentException When a pattern is invalid or has unsupported letters
+     */
+    public static LocalDate parseDate(CharSequence text, String pattern) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == FixedDateCodec.DATE_LENGTH && FixedDateCodec.DATE.equals(pattern)) {
+            LocalDate date = FixedDateCodec.parseDate(text, 0, YEAR_OFFSET);
+            if (date != null) {
+                return date;
+            }
+        }
+
+        try {
+            return get(pattern).parse(text, LocalDate::from);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse a Thai date time text to ISO date time
+     * @param text The text (e.g. 09/03/2564 13:30:00)
+     * @param pattern The pattern
+     * @return The date time, null when a text cannot be parsed
+     * @throws IllegalArgumentException When a pattern is invalid or has unsupported letters
+     */
+    public static LocalDateTime parseDateTime(CharSequence text, String pattern) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == FixedDateCodec.DATE_TIME_LENGTH && FixedDateCodec.DATE_TIME.equals(pattern)) {
+            LocalDateTime dateTime = FixedDateCodec.parseDateTime(text, 0, YEAR_OFFSET);
+            if (dateTime != null) {
+                return dateTime;
+            }
+        }
+
+        try {
+            return get(pattern).parse(text, LocalDateTime::from);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    public static void clearCache() {
+        FORMATTERS.clear();
+    }
+
+    private static DateTimeFormatter create(String pattern) {
+        if (!isSupported(pattern)) {
+            throw new IllegalArgumentException("Unsupported pattern: " + pattern);
+        }
+
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        int length = pattern.length();
+        int index = 0;
+        while (index < length) {
+            char ch = pattern.charAt(index);
+            int end = index + 1;
+            if (ch == '\'') {
+                while (end < length && (pattern.charAt(end) != '\'' || (end + 1 < length
+                        && pattern.charAt(end + 1) == '\''))) {
+                    end += (pattern.charAt(end) == '\'' ? 2 : 1);
+                }
+                end = Math.min(end + 1, length);
+                builder.appendPattern(pattern.substring(index, end));
+            } else if (isLetter(ch)) {
+                while (end < length && pattern.charAt(end) == ch) {
+                    end++;
+                }
+                appendField(builder, ch, end - index);
+            } else {
+                builder.appendLiteral(ch);
+            }
+            index = end;
+        }
+        return builder.toFormatter(THAI).withChronology(ThaiBuddhistChronology.INSTANCE);
+    }
+
+    /**
+     * Append a field with a meaning of SimpleDateFormat, numbers are padded to a number of letters
+     */
+    private static void appendField(DateTimeFormatterBuilder builder, char letter, int count) {
+        switch (letter) {
+            case 'G':
+                builder.appendText(ChronoField.ERA, count >= 4 ? LONG_ERAS : ERAS);
+                break;
+            case 'y':
+                if (count == 2) {
+                    // same as SimpleDateFormat, a two digits year is within 80 years before and 20 years after now
+                    int base = ThaiBuddhistDate.now().get(ChronoField.YEAR_OF_ERA) - 80;
+                    builder.appendValueReduced(ChronoField.YEAR_OF_ERA, 2, 2, base);
+                } else {
+                    appendNumber(builder, ChronoField.YEAR_OF_ERA, count, 10);
+                }
+                break;
+            case 'M':
+                if (count >= 4) {
+                    builder.appendText(ChronoField.MONTH_OF_YEAR, MONTHS);
+                } else if (count == 3) {
+                    builder.appendText(ChronoField.MONTH_OF_YEAR, SHORT_MONTHS);
+                } else {
+                    appendNumber(builder, ChronoField.MONTH_OF_YEAR, count, 2);
+                }
+                break;
+            case 'E':
+                builder.appendText(ChronoField.DAY_OF_WEEK, count >= 4 ? DAYS : SHORT_DAYS);
+                break;
+            case 'a':
+                builder.appendText(ChronoField.AMPM_OF_DAY, AM_PM);
+                break;
+            case 'd':
+                appendNumber(builder, ChronoField.DAY_OF_MONTH, count, 2);
+                break;
+            case 'H':
+                appendNumber(builder, ChronoField.HOUR_OF_DAY, count, 2);
+                break;
+            case 'k':
+                appendNumber(builder, ChronoField.CLOCK_HOUR_OF_DAY, count, 2);
+                break;
+            case 'K':
+                appendNumber(builder, ChronoField.HOUR_OF_AMPM, count, 2);
+                break;
+            case 'h':
+                appendNumber(builder, ChronoField.CLOCK_HOUR_OF_AMPM, count, 2);
+                break;
+            case 'm':
+                appendNumber(builder, ChronoField.MINUTE_OF_HOUR, count, 2);
+                break;
+            case 's':
+                appendNumber(builder, ChronoField.SECOND_OF_MINUTE, count, 2);
+                break;
+            default:
+                // 'S' is a number of milliseconds
+                appendNumber(builder, ChronoField.MILLI_OF_SECOND, count, 3);
+                break;
+        }
+    }
+
+    /**
+     * Append a number of a minimum width, a width is fixed (adjacent numbers can be parsed) when a value always fit
+     */
+    private static void appendNumber(DateTimeFormatterBuilder builder, ChronoField field, int count, int maxDigits) {
+        if (count == 1) {
+            builder.appendValue(field);
+        } else if (count >= maxDigits) {
+            builder.appendValue(field, count);
+        } else {
+            builder.appendValue(field, count, maxDigits, SignStyle.NOT_NEGATIVE);
+        }
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z');
+    }
+}
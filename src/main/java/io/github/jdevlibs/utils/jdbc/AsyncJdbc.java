@@ -0,0 +1,362 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run JDBC work of a DataSource on an executor and return CompletableFuture,
+ * independent queries can run at the same time instead of one after another.
+ * <pre>
+ * AsyncJdbc async = AsyncJdbc.create(dataSource).maxConcurrency(8);
+ * CompletableFuture&lt;List&lt;Employee&gt;&gt; employees = async.query(Employee.class, "SELECT * FROM EMPLOYEE");
+ * CompletableFuture&lt;List&lt;Map&lt;String, Object&gt;&gt;&gt; codes = async.queryForMaps("SELECT * FROM M_CODE");
+ * CompletableFuture.allOf(employees, codes).join();
+ * </pre>
+ * Default executor use virtual threads on Java 21 or later (looked up at runtime, a base code is Java 8),
+ * otherwise a shared cached pool of daemon threads.
+ * At most maxConcurrency tasks of a DataSource hold a connection at the same time (a limit is shared by all
+ * instances of a same DataSource), other tasks wait in a queue without blocking an executor thread.
+ * A future cancelled before a task start skip the task, a running statement is not cancelled.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class AsyncJdbc {
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    private static final Map<DataSource, Limiter> LIMITERS = new WeakHashMap<>();
+    private static volatile Executor defaultExecutor;
+
+    private final DataSource dataSource;
+    private final Limiter limiter;
+    private Executor executor;
+
+    protected AsyncJdbc(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.limiter = limiterOf(dataSource);
+    }
+
+    /**
+     * Create async facade, maxConcurrency default is a pool size of {@link SimpleConnectionPool}
+     * or {@link #DEFAULT_MAX_CONCURRENCY}
+     * @param dataSource The DataSource
+     * @return The async facade
+     */
+    public static AsyncJdbc create(DataSource dataSource) {
+        return new AsyncJdbc(dataSource);
+    }
+
+    /**
+     * Set executor which run tasks, default is {@link #getDefaultExecutor()}
+     * @param executor The executor
+     * @return This instance
+     */
+    public AsyncJdbc executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set maximum number of tasks of a DataSource which hold a connection at the same time,
+     * should not exceed a pool size. The limit is shared by all instances of a DataSource.
+     * @param maxConcurrency The maximum number of tasks
+     * @return This instance
+     */
+    public AsyncJdbc maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        limiter.maxConcurrency = maxConcurrency;
+        limiter.drain();
+        return this;
+    }
+
+    /**
+     * Get shared default executor, virtual thread per task when available
+     * @return The executor
+     */
+    public static Executor getDefaultExecutor() {
+        Executor result = defaultExecutor;
+        if (result == null) {
+            synchronized (AsyncJdbc.class) {
+                result = defaultExecutor;
+                if (result == null) {
+                    result = createDefaultExecutor();
+                    defaultExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check a default executor use virtual threads
+     * @return true when running on Java 21 or later
+     */
+    public static boolean isVirtualThreads() {
+        return !(getDefaultExecutor() instanceof PlatformExecutor);
+    }
+
+    /**
+     * Run work with a connection, the connection is closed when the work end
+     * @param callback The work
+     * @param <T> The result type
+     * @return The future of a result
+     */
+    public <T> CompletableFuture<T> supply(ConnectionCallback<T> callback) {
+        Task<T> task = new Task<>(callback, (executor != null ? executor : getDefaultExecutor()));
+        limiter.pending.add(task);
+        limiter.drain();
+        return task.future;
+    }
+
+    public <T> CompletableFuture<List<T>> query(RowMapper<T> mapper, String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+                List<T> results = new ArrayList<>();
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+                return results;
+            }
+        });
+    }
+
+    public <T> CompletableFuture<List<T>> query(Class<T> type, String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+                BeanRowMapper<T> mapper = BeanRowMapper.of(type, rs.getMetaData());
+                List<T> results = new ArrayList<>();
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Query a first row
+     * @param mapper The row mapper
+     * @param sql The query
+     * @param params The parameters
+     * @param <T> The result type
+     * @return The future of a first row, null value when no row
+     */
+    public <T> CompletableFuture<T> queryForObject(RowMapper<T> mapper, String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params)) {
+                ps.setMaxRows(1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return (rs.next() ? mapper.map(rs) : null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Query rows as maps of column label and value ({@link RowMap})
+     * @param sql The query
+     * @param params The parameters
+     * @return The future of rows
+     */
+    public CompletableFuture<List<Map<String, Object>>> queryForMaps(String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+                return RowMap.readAll(rs);
+            }
+        });
+    }
+
+    public CompletableFuture<CachedResult> queryForResult(String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params); ResultSet rs = ps.executeQuery()) {
+                return CachedResult.of(rs);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> update(String sql, Object... params) {
+        return supply(conn -> {
+            try (PreparedStatement ps = prepare(conn, sql, params)) {
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return limiter.maxConcurrency;
+    }
+
+    /**
+     * Get number of tasks of a DataSource which are running
+     * @return The number of tasks
+     */
+    public int getActiveCount() {
+        return limiter.running.get();
+    }
+
+    /**
+     * Get number of tasks of a DataSource which wait for a concurrency limit
+     * @return The number of tasks
+     */
+    public int getPendingCount() {
+        return limiter.pending.size();
+    }
+
+    private static Limiter limiterOf(DataSource dataSource) {
+        synchronized (LIMITERS) {
+            return LIMITERS.computeIfAbsent(dataSource, key -> new Limiter(key instanceof SimpleConnectionPool
+                    ? ((SimpleConnectionPool) key).getMaxSize() : DEFAULT_MAX_CONCURRENCY));
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql, Object[] params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        try {
+            if (params != null) {
+                for (int i = 0; i < params.length; i++) {
+                    SqlBinder.bindObject(ps, i + 1, params[i]);
+                }
+            }
+            return ps;
+        } catch (SQLException ex) {
+            ps.close();
+            throw ex;
+        }
+    }
+
+
+    private static Executor createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception ex) {
+            //Ignore, before Java 21
+        }
+        return new PlatformExecutor();
+    }
+
+    /**
+     * Concurrency limit and pending tasks of a DataSource, a limiter does not reference a DataSource
+     * (a key of a weak map)
+     */
+    private static final class Limiter {
+        private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile int maxConcurrency;
+
+        private Limiter(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        private void drain() {
+            while (true) {
+                int count = running.get();
+                if (count >= maxConcurrency || pending.isEmpty()) {
+                    return;
+                }
+                if (!running.compareAndSet(count, count + 1)) {
+                    continue;
+                }
+
+                Task<?> task = pending.poll();
+                if (task == null) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                try {
+                    task.executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            running.decrementAndGet();
+                            drain();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    running.decrementAndGet();
+                    task.future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private final class Task<T> {
+        private final ConnectionCallback<T> callback;
+        private final Executor executor;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(ConnectionCallback<T> callback, Executor executor) {
+            this.callback = callback;
+            this.executor = executor;
+        }
+
+        private void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try (Connection conn = dataSource.getConnection()) {
+                future.complete(callback.apply(conn));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * Cached pool of daemon threads, a number of threads is limited by maxConcurrency of callers
+     */
+    private static final class PlatformExecutor implements Executor {
+        private final AtomicInteger sequence = new AtomicInteger();
+        private final ExecutorService service = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "async-jdbc-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        @Override
+        public void execute(Runnable command) {
+            service.execute(command);
+        }
+    }
+
+    /**
+     * Work with a connection
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    public interface ConnectionCallback<T> {
+
+        T apply(Connection conn) throws SQLException;
+    }
+}
@@ -0,0 +1,314 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnType;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insert rows into a table in batches. Rows are buffered and written with addBatch/executeBatch when
+ * a buffer reach a batch size. When {@link Dialect#supportsMultiRowInsert()} (MySQL, SQL Server) rows are grouped
+ * into multi-row INSERT ... VALUES (...),(...) statements, other databases use a single-row INSERT batch.
+ * <pre>
+ * try (BatchWriter writer = BatchWriter.create(conn, "EMPLOYEE", 1000)) {
+ *     for (Employee employee : employees) {
+ *         writer.addBean(employee);
+ *     }
+ * }
+ * </pre>
+ * Column types are read from {@link JdbcUtils#getColumnSqlType} (cached), A transaction is controlled by a caller.
+ * A BatchWriter is not thread-safe.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class BatchWriter implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final Connection conn;
+    private final String table;
+    private final String[] columns;
+    private final int[] types;
+    private final int batchSize;
+    private final int rowsPerStatement;
+    private final List<Object[]> buffer;
+
+    private PreparedStatement singleStatement;
+    private PreparedStatement multiStatement;
+    private Class<?> beanClass;
+    private Method[] getters;
+    private long rowCount;
+    private long batchCount;
+
+    protected BatchWriter(Connection conn, String table, Map<String, ColumnType> columnTypes, int batchSize) {
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            throw new IllegalArgumentException("Table " + table + " has no columns");
+        }
+
+        this.conn = conn;
+        this.table = table;
+        this.batchSize = (batchSize <= 0 ? DEFAULT_BATCH_SIZE : batchSize);
+        this.columns = new String[columnTypes.size()];
+        this.types = new int[columnTypes.size()];
+        int i = 0;
+        for (Map.Entry<String, ColumnType> entry : columnTypes.entrySet()) {
+            columns[i] = entry.getKey();
+            types[i] = entry.getValue().getType();
+            i++;
+        }
+        this.rowsPerStatement = rowsPerStatement(conn, this.batchSize, columns.length);
+        this.buffer = new ArrayList<>(this.batchSize);
+    }
+
+    /**
+     * Create batch writer of all table columns
+     * @param conn The connection
+     * @param table The table name (e.g. TABLE or SCHEMA.TABLE)
+     * @return The batch writer
+     * @throws SQLException When cannot read table metadata
+     */
+    public static BatchWriter create(Connection conn, String table) throws SQLException {
+        return create(conn, table, DEFAULT_BATCH_SIZE);
+    }
+
+    public static BatchWriter create(Connection conn, String table, int batchSize) throws SQLException {
+        Map<String, ColumnType> columnTypes = JdbcMetadataCache.getDefault()
+                .getColumnSqlType(conn.getMetaData(), table);
+        return new BatchWriter(conn, table, columnTypes, batchSize);
+    }
+
+    /**
+     * Create batch writer of some table columns
+     * @param conn The connection
+     * @param table The table name (e.g. TABLE or SCHEMA.TABLE)
+     * @param columns The columns to insert
+     * @param batchSize The number of rows per batch
+     * @return The batch writer
+     * @throws SQLException When cannot read table metadata or a column not found
+     */
+    public static BatchWriter create(Connection conn, String table, Collection<String> columns, int batchSize)
+            throws SQLException {
+        Map<String, ColumnType> tableTypes = JdbcMetadataCache.getDefault()
+                .getColumnSqlType(conn.getMetaData(), table);
+        return new BatchWriter(conn, table, selectColumns(table, tableTypes, columns), batchSize);
+    }
+
+    /**
+     * Add a row, Map keys are matched to column names (case-insensitive), missing key is insert as null
+     * @param row The row values
+     * @throws SQLException When cannot write a batch
+     */
+    public void add(Map<String, ?> row) throws SQLException {
+        addValues(SqlBinder.mapValues(row, columns));
+    }
+
+    /**
+     * Add a bean, Columns are matched to bean properties (e.g. EMPLOYEE_NAME to employeeName)
+     * @param bean The bean
+     * @throws SQLException When cannot write a batch
+     */
+    public void addBean(Object bean) throws SQLException {
+        if (bean.getClass() != beanClass) {
+            beanClass = bean.getClass();
+            getters = SqlBinder.getters(beanClass, columns);
+        }
+        addValues(SqlBinder.beanValues(bean, getters));
+    }
+
+    /**
+     * Add a row, Values are ordered by {@link #getColumns()}
+     * @param values The row values
+     * @throws SQLException When cannot write a batch
+     */
+    public void addValues(Object... values) throws SQLException {
+        if (values.length != columns.length) {
+            throw new SQLException("Expected " + columns.length + " values, actual " + values.length);
+        }
+
+        buffer.add(values);
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all buffered rows. Buffered rows are discarded when a batch fail (a part of rows may be written),
+     * they are not written again by a next flush or close.
+     * @throws SQLException When cannot write a batch
+     */
+    public void flush() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        int size = buffer.size();
+        int offset = 0;
+        try {
+            if (rowsPerStatement > 1 && size >= rowsPerStatement) {
+                if (multiStatement == null) {
+                    multiStatement = conn.prepareStatement(insertSql(rowsPerStatement));
+                }
+                for (; offset + rowsPerStatement <= size; offset += rowsPerStatement) {
+                    int index = 1;
+                    for (int row = offset; row < offset + rowsPerStatement; row++) {
+                        index = bindRow(multiStatement, index, buffer.get(row));
+                    }
+                    multiStatement.addBatch();
+                }
+                multiStatement.executeBatch();
+                batchCount++;
+                rowCount += offset;
+            }
+
+            if (offset < size) {
+                if (singleStatement == null) {
+                    singleStatement = conn.prepareStatement(insertSql(1));
+                }
+                for (int row = offset; row < size; row++) {
+                    bindRow(singleStatement, 1, buffer.get(row));
+                    singleStatement.addBatch();
+                }
+                singleStatement.executeBatch();
+                batchCount++;
+                rowCount += size - offset;
+            }
+        } finally {
+            buffer.clear();
+            clearBatch(multiStatement);
+            clearBatch(singleStatement);
+        }
+    }
+
+    /**
+     * Discard buffered rows which are not written (e.g. when a caller abort an insert before close)
+     */
+    public void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * Write buffered rows and close statements, the connection is not closed
+     * @throws SQLException When cannot write a batch
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            JdbcUtils.close(multiStatement);
+            JdbcUtils.close(singleStatement);
+            multiStatement = null;
+            singleStatement = null;
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * Get number of rows written to a database
+     * @return The number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get number of executeBatch calls
+     * @return The number of batches
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    private static void clearBatch(PreparedStatement ps) {
+        if (ps == null) {
+            return;
+        }
+        try {
+            ps.clearBatch();
+        } catch (SQLException ex) {
+            //Ignore
+        }
+    }
+
+    private int bindRow(PreparedStatement ps, int index, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            SqlBinder.bind(ps, index++, types[i], values[i]);
+        }
+        return index;
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sb = new StringBuilder(64 + columns.length * 16 + rows * columns.length * 2);
+        sb.append("INSERT INTO ").append(table).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns[i]);
+        }
+        sb.append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sb.append(", ");
+            }
+            sb.append('(');
+            for (int i = 0; i < columns.length; i++) {
+                sb.append(i == 0 ? "?" : ", ?");
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    private static int rowsPerStatement(Connection conn, int batchSize, int columnCount) {
+        return Math.min(batchSize, Dialect.of(conn).getMaxInsertRows(columnCount));
+    }
+
+    static Map<String, ColumnType> selectColumns(String table, Map<String, ColumnType> tableTypes,
+                                                 Collection<String> columns) throws SQLException {
+        Map<String, Object> insensitive = SqlBinder.caseInsensitive(tableTypes);
+        Map<String, ColumnType> selected = new LinkedHashMap<>();
+        for (String column : columns) {
+            ColumnType type = (ColumnType) insensitive.get(column);
+            if (type == null) {
+                throw new SQLException("Column " + column + " not found in table " + table);
+            }
+            selected.put(column, type);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,163 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.ClassUtils;
+import io.github.jdevlibs.utils.Convertors;
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.bean.NestedSetter;
+import io.github.jdevlibs.utils.cache.BoundedCache;
+import io.github.jdevlibs.utils.jdbc.RowReader.ColumnReader;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Map a ResultSet row to a bean. Column labels are converted to property names with
+ * {@link JdbcUtils#toPropertyName(ResultSetMetaData)} (e.g. EMPLOYEE_NAME to employeeName, HOME.NAME to home.name)
+ * and the setters are resolved once per a bean class and a query shape (column labels and types).
+ * Columns without a property are ignored.
+ * @param <T> The bean type
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class BeanRowMapper<T> implements RowMapper<T> {
+    private static final int MAX_MAPPERS = 512;
+    private static final BoundedCache<ShapeKey, BeanRowMapper<?>> MAPPERS = new BoundedCache<>(MAX_MAPPERS);
+
+    private final Class<T> type;
+    private final int[] indexes;
+    private final ColumnReader[] readers;
+    private final NestedSetter[] setters;
+    private final Class<?>[] propertyTypes;
+
+    private BeanRowMapper(Class<T> type, ResultSetMetaData rsMeta) throws SQLException {
+        Map<String, String> properties = JdbcUtils.toPropertyName(rsMeta);
+        int size = rsMeta.getColumnCount();
+        int[] tmpIndexes = new int[size];
+        ColumnReader[] tmpReaders = new ColumnReader[size];
+        NestedSetter[] tmpSetters = new NestedSetter[size];
+        Class<?>[] tmpTypes = new Class<?>[size];
+
+        int count = 0;
+        for (int i = 1; i <= size; i++) {
+            String property = properties.get(JdbcUtils.getColumnName(rsMeta, i));
+            NestedSetter setter = (property == null ? null : NestedSetter.create(type, property));
+            if (setter == null) {
+                continue;
+            }
+
+            tmpIndexes[count] = i;
+            tmpReaders[count] = RowReader.valueReader(rsMeta.getColumnType(i));
+            tmpSetters[count] = setter;
+            tmpTypes[count] = setter.getPropertyType();
+            count++;
+        }
+
+        this.type = type;
+        this.indexes = Arrays.copyOf(tmpIndexes, count);
+        this.readers = Arrays.copyOf(tmpReaders, count);
+        this.setters = Arrays.copyOf(tmpSetters, count);
+        this.propertyTypes = Arrays.copyOf(tmpTypes, count);
+    }
+
+    /**
+     * Get a row mapper of a bean class for ResultSet metadata
+     * @param type The bean class
+     * @param rsMeta The ResultSetMetaData object
+     * @param <T> The bean type
+     * @return The row mapper
+     * @throws SQLException When cannot read ResultSet metadata
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanRowMapper<T> of(Class<T> type, ResultSetMetaData rsMeta) throws SQLException {
+        ShapeKey key = new ShapeKey(type, rsMeta);
+        BeanRowMapper<?> mapper = MAPPERS.get(key);
+        if (mapper == null) {
+            mapper = new BeanRowMapper<>(type, rsMeta);
+            MAPPERS.put(key, mapper);
+        }
+        return (BeanRowMapper<T>) mapper;
+    }
+
+    public static void clearCache() {
+        MAPPERS.clear();
+    }
+
+    @Override
+    public T map(ResultSet rs) throws SQLException {
+        T target = ClassUtils.newInstance(type);
+        for (int i = 0; i < setters.length; i++) {
+            Object value = readers[i].read(rs, indexes[i]);
+            setters[i].setValue(target, Convertors.convertWithType(propertyTypes[i], value));
+        }
+        return target;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Get number of columns which mapped to a bean property
+     * @return The number of mapped columns
+     */
+    public int getPropertyCount() {
+        return setters.length;
+    }
+
+    private static final class ShapeKey {
+        private final Class<?> type;
+        private final String[] columns;
+        private final int[] types;
+        private final int hash;
+
+        private ShapeKey(Class<?> type, ResultSetMetaData rsMeta) throws SQLException {
+            int size = rsMeta.getColumnCount();
+            this.type = type;
+            this.columns = new String[size];
+            this.types = new int[size];
+            for (int i = 0; i < size; i++) {
+                columns[i] = JdbcUtils.getColumnName(rsMeta, i + 1);
+                types[i] = rsMeta.getColumnType(i + 1);
+            }
+            this.hash = 31 * (31 * type.hashCode() + Arrays.hashCode(columns)) + Arrays.hashCode(types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ShapeKey)) {
+                return false;
+            }
+
+            ShapeKey other = (ShapeKey) obj;
+            return hash == other.hash && type == other.type && Arrays.equals(columns, other.columns)
+                    && Arrays.equals(types, other.types);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable query result, values of all rows are kept in one flat array (row by row)
+ * and column labels are shared by all rows.
+ * Values are read with {@link RowReader}, mutable values (e.g. java.sql.Timestamp, byte[]) must not be modified.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class CachedResult {
+    private final String[] columns;
+    private final Object[] values;
+    private final int rowCount;
+
+    private CachedResult(String[] columns, Object[] values, int rowCount) {
+        this.columns = columns;
+        this.values = values;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Read all remaining rows of ResultSet
+     * @param rs JDBC ResultSet
+     * @return The result
+     * @throws SQLException When cannot read ResultSet
+     */
+    public static CachedResult of(ResultSet rs) throws SQLException {
+        RowReader reader = RowReader.of(rs.getMetaData());
+        int columnCount = reader.getColumnCount();
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = reader.getColumn(i);
+        }
+
+        Object[] values = new Object[columnCount * 16];
+        Object[] row = new Object[columnCount];
+        int rowCount = 0;
+        while (rs.next()) {
+            int offset = rowCount * columnCount;
+            if (offset + columnCount > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, offset + columnCount));
+            }
+            reader.read(rs, row);
+            System.arraycopy(row, 0, values, offset, columnCount);
+            rowCount++;
+        }
+
+        return new CachedResult(columns, Arrays.copyOf(values, rowCount * columnCount), rowCount);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Get column position by label
+     * @param column The column label (case-insensitive)
+     * @return The position (first column is 0), -1 when not found
+     */
+    public int indexOf(String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Object getValue(int row, int column) {
+        if (column < 0 || column >= columns.length) {
+            throw new IndexOutOfBoundsException("Column: " + column);
+        }
+        return values[checkRow(row) * columns.length + column];
+    }
+
+    public Object getValue(int row, String column) {
+        int index = indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column not found: " + column);
+        }
+        return getValue(row, index);
+    }
+
+    /**
+     * Get values of a row
+     * @param row The row (first row is 0)
+     * @return Copy of row values
+     */
+    public Object[] getRow(int row) {
+        int offset = checkRow(row) * columns.length;
+        return Arrays.copyOfRange(values, offset, offset + columns.length);
+    }
+
+    /**
+     * Get values of a column
+     * @param column The column label
+     * @param <T> The value type
+     * @return The values of all rows
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getColumnValues(String column) {
+        int index = indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column not found: " + column);
+        }
+
+        List<T> result = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            result.add((T) values[row * columns.length + index]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResult{columns=" + Arrays.toString(columns) + ", rows=" + rowCount + "}";
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + rowCount);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,912 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnInfo;
+import io.github.jdevlibs.utils.jdbc.RowReader.ColumnReader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory query result stored by column. Numbers are kept in primitive arrays (int[], long[], double[]),
+ * decimals with a scale as unscaled long, dates as epoch day/micros, strings are dictionary-encoded and
+ * nulls are kept in a bitmap per column. Column types are read from {@link JdbcUtils#getColumInfo}, one column
+ * per position, a name lookup return a first column of a duplicate label.
+ * A decimal which has more fraction digits than a declared scale (or a column without a scale) is kept as
+ * BigDecimal, a value is never rounded. An unsigned INTEGER is kept as long and an unsigned BIGINT as BigDecimal.
+ * <pre>
+ * ColumnarResult result = ColumnarResult.load(rs);
+ * int amount = result.getColumnIndex("AMOUNT");
+ * ColumnarResult.Cursor cursor = result.cursor();
+ * while (cursor.next()) {
+ *     if (!cursor.isNull(amount)) {
+ *         total += cursor.getDouble(amount);
+ *     }
+ * }
+ * </pre>
+ * A loaded result is read-only and can be read by many threads, a Cursor is not thread-safe.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class ColumnarResult {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] names;
+    private final Column[] columns;
+    private final Map<String, Integer> indexes;
+    private int rowCount;
+
+    private ColumnarResult(ResultSetMetaData rsMeta) throws SQLException {
+        List<ColumnInfo> columnInfos = JdbcUtils.getColumInfo(rsMeta);
+        int size = columnInfos.size();
+        this.names = new String[size];
+        this.columns = new Column[size];
+        this.indexes = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ColumnInfo info = columnInfos.get(i);
+            names[i] = info.getColumn();
+            columns[i] = createColumn(info, isUnsigned(rsMeta, info));
+            indexes.putIfAbsent(info.getColumn().toUpperCase(), i);
+        }
+    }
+
+    /**
+     * Load all remaining rows of ResultSet
+     * @param rs JDBC ResultSet
+     * @return The columnar result
+     * @throws SQLException When cannot read ResultSet
+     */
+    public static ColumnarResult load(ResultSet rs) throws SQLException {
+        return load(rs, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Load rows of ResultSet
+     * @param rs JDBC ResultSet
+     * @param maxRows The maximum number of rows
+     * @return The columnar result
+     * @throws SQLException When cannot read ResultSet
+     */
+    public static ColumnarResult load(ResultSet rs, int maxRows) throws SQLException {
+        ColumnarResult result = new ColumnarResult(rs.getMetaData());
+        Column[] columns = result.columns;
+        int capacity = INITIAL_CAPACITY;
+        for (Column column : columns) {
+            column.ensureCapacity(capacity);
+        }
+
+        int row = 0;
+        while (row < maxRows && rs.next()) {
+            if (row == capacity) {
+                capacity = capacity + (capacity >> 1);
+                for (Column column : columns) {
+                    column.ensureCapacity(capacity);
+                }
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].read(rs, i + 1, row);
+            }
+            row++;
+        }
+
+        for (Column column : columns) {
+            column.trim(row);
+        }
+        result.rowCount = row;
+        return result;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Get column position by name
+     * @param name The column name (case-insensitive)
+     * @return The first column position of a name (first column is 0), -1 when not found
+     */
+    public int getColumnIndex(String name) {
+        Integer index = indexes.get(name.toUpperCase());
+        return (index == null ? -1 : index);
+    }
+
+    public Kind getKind(int column) {
+        return columns[column].kind();
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    public int getInt(int row, int column) {
+        return (int) columns[column].getLong(row);
+    }
+
+    public long getLong(int row, int column) {
+        return columns[column].getLong(row);
+    }
+
+    public double getDouble(int row, int column) {
+        return columns[column].getDouble(row);
+    }
+
+    public String getString(int row, int column) {
+        Object value = columns[column].getObject(row);
+        return (value == null ? null : value.toString());
+    }
+
+    public Object getObject(int row, int column) {
+        return columns[column].getObject(row);
+    }
+
+    /**
+     * Sum of a numeric column, nulls are ignored
+     * @param column The column position
+     * @return The sum value
+     */
+    public double sum(int column) {
+        return columns[column].sum(rowCount);
+    }
+
+    /**
+     * Count non-null values of a column
+     * @param column The column position
+     * @return The number of non-null values
+     */
+    public int count(int column) {
+        return rowCount - columns[column].nullCount(rowCount);
+    }
+
+    /**
+     * Get number of distinct values of a dictionary-encoded string column
+     * @param column The column position
+     * @return The dictionary size, -1 when a column is not dictionary-encoded
+     */
+    public int getDictionarySize(int column) {
+        Column col = columns[column];
+        return (col instanceof StringColumn ? ((StringColumn) col).dictionarySize() : -1);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Check an unsigned INTEGER/BIGINT (e.g. MySQL INT UNSIGNED), a value may not fit int/long
+     */
+    private static boolean isUnsigned(ResultSetMetaData rsMeta, ColumnInfo info) throws SQLException {
+        int type = info.getType();
+        return (type == Types.INTEGER || type == Types.BIGINT) && !rsMeta.isSigned(info.getIndex());
+    }
+
+    private static Column createColumn(ColumnInfo type, boolean unsigned) {
+        switch (type.getType()) {
+            case Types.INTEGER:
+                if (unsigned) {
+                    return new LongColumn();
+                }
+                return new IntColumn(false);
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return new IntColumn(type.getType() == Types.BIT || type.getType() == Types.BOOLEAN);
+            case Types.BIGINT:
+                if (unsigned) {
+                    return new ObjectColumn(ResultSet::getBigDecimal, Kind.DECIMAL);
+                }
+                return new LongColumn();
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                if (type.getDigit() < 0) {
+                    // a scale is not declared (e.g. Oracle NUMBER), keep exact values
+                    return new ObjectColumn(ResultSet::getBigDecimal, Kind.DECIMAL);
+                }
+                return new DecimalColumn(type.getDigit());
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.DATE:
+                return new DateColumn();
+            case Types.TIMESTAMP:
+                return new TimestampColumn();
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringColumn();
+            default:
+                return new ObjectColumn(RowReader.valueReader(type.getType()));
+        }
+    }
+
+    /**
+     * Storage kind of column
+     */
+    public enum Kind {
+        INT,
+        LONG,
+        DECIMAL,
+        DOUBLE,
+        DATE,
+        TIMESTAMP,
+        STRING,
+        OBJECT
+    }
+
+    /**
+     * Forward-only cursor over rows, call {@link #next()} before reading a first row
+     */
+    public final class Cursor {
+        private int row = -1;
+
+        public boolean next() {
+            if (row + 1 < rowCount) {
+                row++;
+                return true;
+            }
+            return false;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public void reset() {
+            row = -1;
+        }
+
+        public boolean isNull(int column) {
+            return columns[column].isNull(row);
+        }
+
+        public int getInt(int column) {
+            return (int) columns[column].getLong(row);
+        }
+
+        public long getLong(int column) {
+            return columns[column].getLong(row);
+        }
+
+        public double getDouble(int column) {
+            return columns[column].getDouble(row);
+        }
+
+        public boolean getBoolean(int column) {
+            return columns[column].getLong(row) != 0L;
+        }
+
+        public String getString(int column) {
+            Object value = columns[column].getObject(row);
+            return (value == null ? null : value.toString());
+        }
+
+        public Object getObject(int column) {
+            return columns[column].getObject(row);
+        }
+
+        public long getLong(String column) {
+            return getLong(requireIndex(column));
+        }
+
+        public double getDouble(String column) {
+            return getDouble(requireIndex(column));
+        }
+
+        public String getString(String column) {
+            return getString(requireIndex(column));
+        }
+
+        public Object getObject(String column) {
+            return getObject(requireIndex(column));
+        }
+
+        private int requireIndex(String column) {
+            int index = getColumnIndex(column);
+            if (index < 0) {
+                throw new IllegalArgumentException("Column not found: " + column);
+            }
+            return index;
+        }
+    }
+
+    private abstract static class Column {
+        protected long[] nulls = new long[0];
+
+        abstract Kind kind();
+
+        /**
+         * Read a value of current row, return a column which keep the value (a column can upgrade its storage)
+         */
+        abstract Column read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void trim(int size);
+
+        abstract Object getObject(int row);
+
+        long getLong(int row) {
+            throw new UnsupportedOperationException(kind() + " column is not a number");
+        }
+
+        double getDouble(int row) {
+            return getLong(row);
+        }
+
+        double sum(int rows) {
+            double total = 0D;
+            for (int i = 0; i < rows; i++) {
+                if (!isNull(i)) {
+                    total += getDouble(i);
+                }
+            }
+            return total;
+        }
+
+        void ensureNulls(int capacity) {
+            int words = (capacity + 63) >>> 6;
+            if (nulls.length < words) {
+                nulls = Arrays.copyOf(nulls, words);
+            }
+        }
+
+        void trimNulls(int size) {
+            nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+        }
+
+        void setNull(int row) {
+            nulls[row >>> 6] |= 1L << row;
+        }
+
+        boolean isNull(int row) {
+            return (nulls[row >>> 6] & (1L << row)) != 0L;
+        }
+
+        int nullCount(int rows) {
+            int count = 0;
+            for (long word : nulls) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private final boolean bool;
+        private int[] values = new int[0];
+
+        private IntColumn(boolean bool) {
+            this.bool = bool;
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.INT;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            values[row] = rs.getInt(index);
+            if (rs.wasNull()) {
+                setNull(row);
+            }
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            ensureNulls(capacity);
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double sum(int rows) {
+            long total = 0L;
+            for (int i = 0; i < rows; i++) {
+                total += values[i];
+            }
+            return total;
+        }
+
+        @Override
+        Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return bool ? (Object) (values[row] != 0) : (Object) values[row];
+        }
+    }
+
+    private static class LongColumn extends Column {
+        protected long[] values = new long[0];
+
+        @Override
+        Kind kind() {
+            return Kind.LONG;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            values[row] = rs.getLong(index);
+            if (rs.wasNull()) {
+                setNull(row);
+            }
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            ensureNulls(capacity);
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        double sum(int rows) {
+            return sum(rows, 0);
+        }
+
+        /**
+         * Sum of unscaled values (a null value is 0), switch to BigInteger when a long total overflow
+         */
+        double sum(int rows, int scale) {
+            long total = 0L;
+            int i = 0;
+            try {
+                for (; i < rows; i++) {
+                    total = Math.addExact(total, values[i]);
+                }
+            } catch (ArithmeticException ex) {
+                BigInteger bigTotal = BigInteger.valueOf(total);
+                for (; i < rows; i++) {
+                    bigTotal = bigTotal.add(BigInteger.valueOf(values[i]));
+                }
+                return new BigDecimal(bigTotal, scale).doubleValue();
+            }
+            return (scale == 0 ? total : BigDecimal.valueOf(total, scale).doubleValue());
+        }
+
+        @Override
+        Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    /**
+     * Decimal stored as unscaled long with a fixed scale, upgraded to an object column when a value overflow
+     * or has more fraction digits than a scale
+     */
+    private static final class DecimalColumn extends LongColumn {
+        private final int scale;
+        private final double divisor;
+        /** 10^scale, 0 when a scale is greater than 18 (an integer part of any unscaled long is 0) */
+        private final long factor;
+
+        private DecimalColumn(int scale) {
+            this.scale = scale;
+            this.divisor = Math.pow(10, scale);
+            this.factor = (scale <= 18 ? BigInteger.TEN.pow(scale).longValue() : 0L);
+        }
+
+        @Override
+        Kind kind() {
+            return Kind.DECIMAL;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            BigDecimal value = rs.getBigDecimal(index);
+            if (value == null) {
+                setNull(row);
+                return this;
+            }
+
+            if (value.scale() > scale && value.stripTrailingZeros().scale() > scale) {
+                ObjectColumn column = toObjectColumn(row);
+                column.values[row] = value;
+                return column;
+            }
+
+            BigInteger unscaled = value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                ObjectColumn column = toObjectColumn(row);
+                column.values[row] = value;
+                return column;
+            }
+            values[row] = unscaled.longValue();
+            return this;
+        }
+
+        @Override
+        long getLong(int row) {
+            // truncate toward zero like BigDecimal.longValue()
+            return (factor == 0L ? 0L : values[row] / factor);
+        }
+
+        @Override
+        double getDouble(int row) {
+            return (scale == 0 ? values[row] : values[row] / divisor);
+        }
+
+        @Override
+        double sum(int rows) {
+            return sum(rows, scale);
+        }
+
+        @Override
+        Object getObject(int row) {
+            return isNull(row) ? null : BigDecimal.valueOf(values[row], scale);
+        }
+
+        private ObjectColumn toObjectColumn(int rows) {
+            ObjectColumn column = new ObjectColumn(ResultSet::getBigDecimal, Kind.DECIMAL);
+            column.ensureCapacity(values.length);
+            for (int i = 0; i < rows; i++) {
+                column.values[i] = getObject(i);
+            }
+            column.nulls = nulls;
+            return column;
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        Kind kind() {
+            return Kind.DOUBLE;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            values[row] = rs.getDouble(index);
+            if (rs.wasNull()) {
+                setNull(row);
+            }
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            ensureNulls(capacity);
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+
+        @Override
+        long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        double sum(int rows) {
+            double total = 0D;
+            for (int i = 0; i < rows; i++) {
+                total += values[i];
+            }
+            return total;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    /**
+     * Date stored as epoch day, the value is java.sql.Date
+     */
+    private static final class DateColumn extends LongColumn {
+
+        @Override
+        Kind kind() {
+            return Kind.DATE;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            java.sql.Date value = rs.getDate(index);
+            if (value == null) {
+                setNull(row);
+            } else {
+                values[row] = value.toLocalDate().toEpochDay();
+            }
+            return this;
+        }
+
+        @Override
+        Object getObject(int row) {
+            return isNull(row) ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(values[row]));
+        }
+    }
+
+    /**
+     * Timestamp stored as local epoch microseconds, the value is java.sql.Timestamp.
+     * Nanoseconds below a microsecond (e.g. TIMESTAMP(9)) are kept in an array created by a first such value.
+     */
+    private static final class TimestampColumn extends LongColumn {
+        private static final long MICROS_PER_SECOND = 1_000_000L;
+
+        private int[] nanos;
+
+        @Override
+        Kind kind() {
+            return Kind.TIMESTAMP;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            Timestamp value = rs.getTimestamp(index);
+            if (value == null) {
+                setNull(row);
+            } else {
+                LocalDateTime dateTime = value.toLocalDateTime();
+                values[row] = dateTime.toEpochSecond(java.time.ZoneOffset.UTC) * MICROS_PER_SECOND
+                        + dateTime.getNano() / 1000;
+                int nano = dateTime.getNano() % 1000;
+                if (nano != 0) {
+                    if (nanos == null) {
+                        nanos = new int[values.length];
+                    }
+                    nanos[row] = nano;
+                }
+            }
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            super.ensureCapacity(capacity);
+            if (nanos != null) {
+                nanos = Arrays.copyOf(nanos, capacity);
+            }
+        }
+
+        @Override
+        void trim(int size) {
+            super.trim(size);
+            if (nanos != null) {
+                nanos = Arrays.copyOf(nanos, size);
+            }
+        }
+
+        @Override
+        Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+
+            long micros = values[row];
+            long seconds = Math.floorDiv(micros, MICROS_PER_SECOND);
+            int nano = (int) Math.floorMod(micros, MICROS_PER_SECOND) * 1000 + (nanos == null ? 0 : nanos[row]);
+            return Timestamp.valueOf(LocalDateTime.ofEpochSecond(seconds, nano, java.time.ZoneOffset.UTC));
+        }
+    }
+
+    /**
+     * Dictionary-encoded string, switch to plain storage when most values are unique
+     */
+    private static final class StringColumn extends Column {
+        private static final int MIN_ROWS_FOR_CHECK = 4096;
+
+        private int[] codes = new int[0];
+        private Map<String, Integer> dictionary = new HashMap<>();
+        private List<String> words = new ArrayList<>();
+        private String[] plain;
+
+        @Override
+        Kind kind() {
+            return Kind.STRING;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            String value = rs.getString(index);
+            if (value == null) {
+                setNull(row);
+                return this;
+            }
+
+            if (plain != null) {
+                plain[row] = value;
+                return this;
+            }
+
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = words.size();
+                words.add(value);
+                dictionary.put(value, code);
+                if (row >= MIN_ROWS_FOR_CHECK && words.size() > (row >> 1)) {
+                    toPlain(row);
+                    plain[row] = value;
+                    return this;
+                }
+            }
+            codes[row] = code;
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (plain != null) {
+                plain = Arrays.copyOf(plain, capacity);
+            } else {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+            ensureNulls(capacity);
+        }
+
+        @Override
+        void trim(int size) {
+            if (plain != null) {
+                plain = Arrays.copyOf(plain, size);
+            } else {
+                codes = Arrays.copyOf(codes, size);
+                dictionary = null;
+            }
+            trimNulls(size);
+        }
+
+        @Override
+        Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return (plain != null ? plain[row] : words.get(codes[row]));
+        }
+
+        private int dictionarySize() {
+            return (plain != null ? -1 : words.size());
+        }
+
+        private void toPlain(int rows) {
+            plain = new String[codes.length];
+            for (int i = 0; i < rows; i++) {
+                if (!isNull(i)) {
+                    plain[i] = words.get(codes[i]);
+                }
+            }
+            codes = new int[0];
+            dictionary = null;
+            words = null;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private final ColumnReader reader;
+        private final Kind kind;
+        private Object[] values = new Object[0];
+
+        private ObjectColumn(ColumnReader reader) {
+            this(reader, Kind.OBJECT);
+        }
+
+        private ObjectColumn(ColumnReader reader, Kind kind) {
+            this.reader = reader;
+            this.kind = kind;
+        }
+
+        @Override
+        Kind kind() {
+            return kind;
+        }
+
+        @Override
+        Column read(ResultSet rs, int index, int row) throws SQLException {
+            Object value = reader.read(rs, index);
+            if (value == null) {
+                setNull(row);
+            }
+            values[row] = value;
+            return this;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            ensureNulls(capacity);
+        }
+
+        @Override
+        void trim(int size) {
+            values = Arrays.copyOf(values, size);
+            trimNulls(size);
+        }
+
+        @Override
+        long getLong(int row) {
+            Object value = values[row];
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return super.getLong(row);
+        }
+
+        @Override
+        double getDouble(int row) {
+            Object value = values[row];
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return super.getDouble(row);
+        }
+
+        @Override
+        Object getObject(int row) {
+            return values[row];
+        }
+    }
+}
@@ -0,0 +1,808 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.DateFormats;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Import CSV into a table with a pipeline of three stages connected by bounded queues:
+ * a reader split records, parallel workers parse fields and convert values by column type
+ * ({@link JdbcMetadataCache#getColumnSqlType}), a writer insert rows with {@link BatchWriter} on a caller thread.
+ * <pre>
+ * CsvImporter.Result result = CsvImporter.create(conn, "EMPLOYEE")
+ *         .header(true)
+ *         .workers(4)
+ *         .batchSize(1000)
+ *         .quarantine(errorWriter)
+ *         .onProgress(progress -&gt; log.info(progress.toString()), 100_000)
+ *         .importFrom(reader);
+ * </pre>
+ * A full queue block a previous stage (backpressure). A row which cannot be parsed or converted is rejected
+ * (written to a quarantine Writer), the import fail when rejected rows exceed maxErrors.
+ * Rows are not inserted in file order. A transaction is controlled by a caller, when auto-commit is off
+ * a commit interval can be set. Dates are parsed with {@link DateFormats} (e.g. dd/MM/yyyy, yyyy-MM-dd HH:mm:ss).
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class CsvImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+    public static final int DEFAULT_QUEUE_CAPACITY = 32;
+    public static final int MAX_REJECTED_ROWS = 1000;
+
+    private static final List<Record> END = Collections.emptyList();
+    private static final AtomicInteger THREAD_SEQ = new AtomicInteger();
+
+    private final Connection conn;
+    private final String table;
+    private final Map<String, Function<String, ?>> customConverters = new HashMap<>();
+    private char delimiter = ',';
+    private char quote = '"';
+    private boolean header;
+    private List<String> columns;
+    private boolean emptyAsNull = true;
+    private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int batchSize = BatchWriter.DEFAULT_BATCH_SIZE;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private long commitInterval;
+    private long maxErrors = Long.MAX_VALUE;
+    private Writer quarantine;
+    private Consumer<Result> progressListener;
+    private long progressInterval;
+
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final List<RejectedRow> rejectedRows = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private long startNanos;
+
+    protected CsvImporter(Connection conn, String table) {
+        this.conn = conn;
+        this.table = table;
+    }
+
+    public static CsvImporter create(Connection conn, String table) {
+        return new CsvImporter(conn, table);
+    }
+
+    public CsvImporter delimiter(char delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    public CsvImporter quote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    /**
+     * Read column names from a first record, names are matched to table columns (case-insensitive)
+     * @param header true when a first record is a header
+     * @return This importer
+     */
+    public CsvImporter header(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Set table columns of CSV fields in order, default is a header or all table columns
+     * @param columns The column names
+     * @return This importer
+     */
+    public CsvImporter columns(String... columns) {
+        this.columns = Arrays.asList(columns);
+        return this;
+    }
+
+    /**
+     * Insert empty field of character column as null, default is true (other types are always null)
+     * @param emptyAsNull true to insert null
+     * @return This importer
+     */
+    public CsvImporter emptyAsNull(boolean emptyAsNull) {
+        this.emptyAsNull = emptyAsNull;
+        return this;
+    }
+
+    /**
+     * Set converter of a column, replace a converter of a column type
+     * @param column The column name
+     * @param converter The converter, throw RuntimeException when a value is invalid
+     * @return This importer
+     */
+    public CsvImporter converter(String column, Function<String, ?> converter) {
+        customConverters.put(column.toUpperCase(Locale.US), converter);
+        return this;
+    }
+
+    public CsvImporter workers(int workers) {
+        this.workers = Math.max(1, workers);
+        return this;
+    }
+
+    public CsvImporter batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Set number of records per queue item
+     * @param chunkSize The number of records
+     * @return This importer
+     */
+    public CsvImporter chunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    /**
+     * Set capacity (chunks) of each queue between stages
+     * @param queueCapacity The number of chunks
+     * @return This importer
+     */
+    public CsvImporter queueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        return this;
+    }
+
+    /**
+     * Commit every n written rows when auto-commit is off, 0 is never (default)
+     * @param rows The number of rows
+     * @return This importer
+     */
+    public CsvImporter commitInterval(long rows) {
+        this.commitInterval = rows;
+        return this;
+    }
+
+    public CsvImporter maxErrors(long maxErrors) {
+        this.maxErrors = maxErrors;
+        return this;
+    }
+
+    /**
+     * Set writer of rejected records (one record per line, the original text)
+     * @param quarantine The writer, it is not closed
+     * @return This importer
+     */
+    public CsvImporter quarantine(Writer quarantine) {
+        this.quarantine = quarantine;
+        return this;
+    }
+
+    /**
+     * Call a listener every n written rows and when an import end
+     * @param listener The progress listener
+     * @param interval The number of rows
+     * @return This importer
+     */
+    public CsvImporter onProgress(Consumer<Result> listener, long interval) {
+        this.progressListener = listener;
+        this.progressInterval = Math.max(1L, interval);
+        return this;
+    }
+
+    /**
+     * Get current progress, can be called by other threads
+     * @return The progress
+     */
+    public Result getProgress() {
+        return new Result(readCount.get(), writtenCount.get(), rejectedCount.get(),
+                System.nanoTime() - startNanos, rejectedRows);
+    }
+
+    /**
+     * Import all records of a reader, the reader is not closed
+     * @param reader The CSV reader
+     * @return The result
+     * @throws SQLException When cannot insert rows, read CSV or rejected rows exceed maxErrors
+     */
+    public Result importFrom(Reader reader) throws SQLException {
+        startNanos = System.nanoTime();
+        RecordReader records = new RecordReader(reader, delimiter, quote);
+        Map<String, ColumnType> columnTypes = resolveColumns(records);
+        Function<String, ?>[] converters = converters(columnTypes);
+
+        BlockingQueue<List<Record>> recordQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Object[]>> rowQueue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService service = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread thread = new Thread(r, "csv-importer-" + THREAD_SEQ.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            service.execute(() -> read(records, recordQueue));
+            for (int i = 0; i < workers; i++) {
+                service.execute(() -> convert(recordQueue, rowQueue, converters));
+            }
+            write(columnTypes, rowQueue);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            fail(ex);
+        } catch (SQLException | RuntimeException ex) {
+            fail(ex);
+        } finally {
+            service.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            if (error instanceof SQLException) {
+                throw (SQLException) error;
+            }
+            throw new SQLException("Cannot import CSV into " + table + ": " + error.getMessage(), error);
+        }
+
+        Result result = getProgress();
+        if (progressListener != null) {
+            progressListener.accept(result);
+        }
+        return result;
+    }
+
+    private Map<String, ColumnType> resolveColumns(RecordReader records) throws SQLException {
+        Map<String, ColumnType> tableTypes = JdbcMetadataCache.getDefault().getColumnSqlType(conn.getMetaData(), table);
+        if (tableTypes.isEmpty()) {
+            throw new SQLException("Table " + table + " not found");
+        }
+
+        List<String> names = columns;
+        if (header) {
+            String first;
+            try {
+                first = records.next();
+            } catch (IOException ex) {
+                throw new SQLException("Cannot read CSV header", ex);
+            }
+            if (first == null) {
+                throw new SQLException("CSV has no header");
+            }
+            if (names == null) {
+                names = new ArrayList<>();
+                for (String name : parseFields(first, delimiter, quote)) {
+                    names.add(name.trim());
+                }
+            }
+        }
+
+        if (names == null) {
+            return tableTypes;
+        }
+        return BatchWriter.selectColumns(table, tableTypes, names);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Function<String, ?>[] converters(Map<String, ColumnType> columnTypes) {
+        Function<String, ?>[] result = new Function[columnTypes.size()];
+        int i = 0;
+        for (Map.Entry<String, ColumnType> entry : columnTypes.entrySet()) {
+            Function<String, ?> custom = customConverters.get(entry.getKey().toUpperCase(Locale.US));
+            result[i++] = (custom != null ? custom : converter(entry.getValue().getType()));
+        }
+        return result;
+    }
+
+    /**
+     * Create a strict converter of a column type, an invalid value throw RuntimeException
+     * @param type The JDBC column type
+     * @return The converter
+     */
+    static Function<String, ?> converter(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return value -> Integer.valueOf(value.trim());
+            case Types.BIGINT:
+                return value -> Long.valueOf(value.trim());
+            case Types.REAL:
+            case Types.DOUBLE:
+                return value -> Double.valueOf(value.trim());
+            case Types.FLOAT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return value -> new BigDecimal(value.trim());
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return CsvImporter::toBoolean;
+            case Types.DATE:
+                return value -> java.sql.Date.valueOf(required(DateFormats.localDate(value.trim()), value));
+            case Types.TIMESTAMP:
+                return CsvImporter::toTimestamp;
+            case Types.TIME:
+                return value -> java.sql.Time.valueOf(required(DateFormats.time(value.trim()), value));
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return value -> Base64.getMimeDecoder().decode(value.trim());
+            default:
+                return value -> value;
+        }
+    }
+
+    private static Object toBoolean(String value) {
+        String text = value.trim();
+        if ("1".equals(text) || "true".equalsIgnoreCase(text) || "Y".equalsIgnoreCase(text)) {
+            return Boolean.TRUE;
+        } else if ("0".equals(text) || "false".equalsIgnoreCase(text) || "N".equalsIgnoreCase(text)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Invalid boolean: " + value);
+    }
+
+    private static Object toTimestamp(String value) {
+        String text = value.trim();
+        LocalDateTime dateTime = DateFormats.localDateTime(text);
+        if (dateTime == null) {
+            LocalDate date = DateFormats.localDate(text);
+            dateTime = (date == null ? null : date.atStartOfDay());
+        }
+        return Timestamp.valueOf(required(dateTime, value));
+    }
+
+    private static <T> T required(T value, String text) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid date: " + text);
+        }
+        return value;
+    }
+
+    private void read(RecordReader records, BlockingQueue<List<Record>> recordQueue) {
+        try {
+            List<Record> chunk = new ArrayList<>(chunkSize);
+            String text;
+            while (failure.get() == null && (text = records.next()) != null) {
+                if (text.isEmpty()) {
+                    continue;
+                }
+                chunk.add(new Record(records.getLine(), text));
+                readCount.incrementAndGet();
+                if (chunk.size() == chunkSize) {
+                    recordQueue.put(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                recordQueue.put(chunk);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            fail(ex);
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                putEnd(recordQueue, END);
+            }
+        }
+    }
+
+    private void convert(BlockingQueue<List<Record>> recordQueue, BlockingQueue<List<Object[]>> rowQueue,
+                         Function<String, ?>[] converters) {
+        List<Object[]> endRows = Collections.emptyList();
+        try {
+            while (true) {
+                List<Record> chunk = recordQueue.take();
+                if (chunk == END) {
+                    break;
+                }
+                List<Object[]> rows = new ArrayList<>(chunk.size());
+                for (Record record : chunk) {
+                    Object[] row = convertRecord(record, converters);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    rowQueue.put(rows);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            fail(ex);
+        } finally {
+            // each worker send an empty list when it is done
+            putEnd(rowQueue, endRows);
+        }
+    }
+
+    private <T> void putEnd(BlockingQueue<T> queue, T end) {
+        try {
+            while (!queue.offer(end, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    // a next stage may be stopped, pending items are dropped
+                    queue.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Object[] convertRecord(Record record, Function<String, ?>[] converters) {
+        try {
+            String[] fields = parseFields(record.text, delimiter, quote);
+            if (fields.length != converters.length) {
+                throw new IllegalArgumentException("Expected " + converters.length + " fields, actual " + fields.length);
+            }
+
+            Object[] row = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                String field = fields[i];
+                if (field.isEmpty()) {
+                    row[i] = (emptyAsNull ? null : convertEmpty(converters[i]));
+                } else {
+                    try {
+                        row[i] = converters[i].apply(field);
+                    } catch (RuntimeException ex) {
+                        throw new IllegalArgumentException("Field " + (i + 1) + ": " + ex.getMessage(), ex);
+                    }
+                }
+            }
+            return row;
+        } catch (RuntimeException ex) {
+            reject(record, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Object convertEmpty(Function<String, ?> converter) {
+        try {
+            return converter.apply("");
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private void reject(Record record, String message) {
+        long count = rejectedCount.incrementAndGet();
+        if (rejectedRows.size() < MAX_REJECTED_ROWS) {
+            rejectedRows.add(new RejectedRow(record.line, record.text, message));
+        }
+        if (quarantine != null) {
+            synchronized (quarantine) {
+                try {
+                    quarantine.write(record.text);
+                    quarantine.write(System.lineSeparator());
+                } catch (IOException ex) {
+                    fail(ex);
+                }
+            }
+        }
+        if (count > maxErrors) {
+            fail(new SQLException("Rejected rows exceed " + maxErrors + ", last error at line "
+                    + record.line + ": " + message));
+        }
+    }
+
+    private void write(Map<String, ColumnType> columnTypes, BlockingQueue<List<Object[]>> rowQueue)
+            throws SQLException, InterruptedException {
+        boolean commit = commitInterval > 0 && !conn.getAutoCommit();
+        long nextCommit = commitInterval;
+        long nextProgress = progressInterval;
+        int doneWorkers = 0;
+        try (BatchWriter writer = new BatchWriter(conn, table, columnTypes, batchSize)) {
+            boolean completed = false;
+            try {
+                while (doneWorkers < workers) {
+                    List<Object[]> rows = rowQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    if (rows == null) {
+                        continue;
+                    }
+                    if (rows.isEmpty()) {
+                        doneWorkers++;
+                        continue;
+                    }
+
+                    for (Object[] row : rows) {
+                        writer.addValues(row);
+                    }
+                    long written = writer.getRowCount();
+                    writtenCount.set(written);
+                    if (commit && written >= nextCommit) {
+                        conn.commit();
+                        nextCommit = written + commitInterval;
+                    }
+                    if (progressListener != null && written >= nextProgress) {
+                        progressListener.accept(getProgress());
+                        nextProgress = written + progressInterval;
+                    }
+                }
+                writer.flush();
+                writtenCount.set(writer.getRowCount());
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // an import is failed, buffered rows must not be written by close
+                    writer.clear();
+                }
+            }
+        }
+        if (commit) {
+            conn.commit();
+        }
+    }
+
+    private void fail(Throwable ex) {
+        failure.compareAndSet(null, ex);
+    }
+
+    /**
+     * Split a CSV record to fields, a quoted field can contain a delimiter, a line break and "" (a quote)
+     * @param record The record text
+     * @param delimiter The field delimiter
+     * @param quote The quote character
+     * @return The fields
+     */
+    static String[] parseFields(String record, char delimiter, char quote) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(32);
+        int length = record.length();
+        boolean quoted = false;
+        int i = 0;
+        while (i < length) {
+            char ch = record.charAt(i);
+            if (quoted) {
+                if (ch == quote) {
+                    if (i + 1 < length && record.charAt(i + 1) == quote) {
+                        sb.append(quote);
+                        i += 2;
+                        continue;
+                    }
+                    quoted = false;
+                } else {
+                    sb.append(ch);
+                }
+            } else if (ch == delimiter) {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else if (ch == quote && sb.length() == 0) {
+                quoted = true;
+            } else {
+                sb.append(ch);
+            }
+            i++;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        fields.add(sb.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Split records by line breaks outside quotes, a quote is handled same as {@link #parseFields}
+     * (a quote only start a quoted section at a first character of a field)
+     */
+    private static final class RecordReader {
+        private final Reader reader;
+        private final char delimiter;
+        private final char quote;
+        private final char[] buffer = new char[16384];
+        private final StringBuilder sb = new StringBuilder(256);
+        private int position;
+        private int limit;
+        private long line;
+        private long recordLine;
+
+        private RecordReader(Reader reader, char delimiter, char quote) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+            this.quote = quote;
+        }
+
+        private String next() throws IOException {
+            sb.setLength(0);
+            recordLine = line + 1;
+            boolean quoted = false;
+            boolean fieldStart = true;
+            // a quote right after a closing quote is an escaped quote ("")
+            boolean closed = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (any) {
+                            line++;
+                            return sb.toString();
+                        }
+                        return null;
+                    }
+                }
+
+                char ch = buffer[position++];
+                any = true;
+                if (quoted) {
+                    if (ch == quote) {
+                        quoted = false;
+                        closed = true;
+                    }
+                } else if (ch == quote && (fieldStart || closed)) {
+                    quoted = true;
+                    fieldStart = !closed && fieldStart;
+                    closed = false;
+                } else {
+                    fieldStart = (ch == delimiter);
+                    closed = false;
+                }
+
+                if (ch == '\n' && !quoted) {
+                    line++;
+                    int end = sb.length();
+                    if (end > 0 && sb.charAt(end - 1) == '\r') {
+                        sb.setLength(end - 1);
+                    }
+                    return sb.toString();
+                } else if (ch == '\n') {
+                    line++;
+                }
+                sb.append(ch);
+            }
+        }
+
+        private long getLine() {
+            return recordLine;
+        }
+    }
+
+    private static final class Record {
+        private final long line;
+        private final String text;
+
+        private Record(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A record which cannot be parsed or converted
+     */
+    public static final class RejectedRow {
+        private final long line;
+        private final String record;
+        private final String message;
+
+        private RejectedRow(long line, String record, String message) {
+            this.line = line;
+            this.record = record;
+            this.message = message;
+        }
+
+        /**
+         * Get line number of a record (first line is 1)
+         * @return The line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public String getRecord() {
+            return record;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "RejectedRow{line=" + line + ", message=" + message + "}";
+        }
+    }
+
+    /**
+     * Progress or result of an import
+     */
+    public static final class Result {
+        private final long readCount;
+        private final long writtenCount;
+        private final long rejectedCount;
+        private final long elapsedNanos;
+        private final List<RejectedRow> rejectedRows;
+
+        private Result(long readCount, long writtenCount, long rejectedCount, long elapsedNanos,
+                       List<RejectedRow> rejectedRows) {
+            this.readCount = readCount;
+            this.writtenCount = writtenCount;
+            this.rejectedCount = rejectedCount;
+            this.elapsedNanos = elapsedNanos;
+            synchronized (rejectedRows) {
+                this.rejectedRows = Collections.unmodifiableList(new ArrayList<>(rejectedRows));
+            }
+        }
+
+        public long getReadCount() {
+            return readCount;
+        }
+
+        public long getWrittenCount() {
+            return writtenCount;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * Get written rows per second
+         * @return The number of rows per second
+         */
+        public double getRowsPerSecond() {
+            return (elapsedNanos == 0L ? 0D : writtenCount * 1_000_000_000D / elapsedNanos);
+        }
+
+        /**
+         * Get first rejected rows (up to {@link #MAX_REJECTED_ROWS})
+         * @return The rejected rows
+         */
+        public List<RejectedRow> getRejectedRows() {
+            return rejectedRows;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{read=" + readCount + ", written=" + writtenCount + ", rejected=" + rejectedCount
+                    + ", elapsed=" + getElapsedMillis() + "ms, rowsPerSecond=" + Math.round(getRowsPerSecond()) + "}";
+        }
+    }
+}
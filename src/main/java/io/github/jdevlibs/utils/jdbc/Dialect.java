@@ -0,0 +1,217 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Database dialect and SQL capabilities. A dialect is resolved once per JDBC URL or DataSource and cached,
+ * so hot code don't call {@link DatabaseMetaData#getDatabaseProductName()} on every call.
+ * <pre>
+ * Dialect dialect = Dialect.of(conn);
+ * if (dialect.supportsMultiRowInsert()) { ... }
+ * </pre>
+ * @author supot.jdev
+ * @version 1.0
+ */
+public enum Dialect {
+    MYSQL(true, false, true, 65535, '`', '`'),
+    ORACLE(false, true, false, 65535, '"', '"'),
+    MSSQL(true, true, false, 2100, '[', ']'),
+    OTHER(false, true, false, 65535, '"', '"');
+
+    private static final char LIKE_ESCAPE_CHAR = '!';
+    private static final int MSSQL_MAX_INSERT_ROWS = 1000;
+    private static final Map<String, Dialect> URL_DIALECTS = new ConcurrentHashMap<>();
+    private static final Map<DataSource, Dialect> DS_DIALECTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final boolean multiRowInsert;
+    private final boolean offsetFetch;
+    private final boolean limit;
+    private final int maxParameters;
+    private final char openQuote;
+    private final char closeQuote;
+
+    Dialect(boolean multiRowInsert, boolean offsetFetch, boolean limit, int maxParameters,
+            char openQuote, char closeQuote) {
+        this.multiRowInsert = multiRowInsert;
+        this.offsetFetch = offsetFetch;
+        this.limit = limit;
+        this.maxParameters = maxParameters;
+        this.openQuote = openQuote;
+        this.closeQuote = closeQuote;
+    }
+
+    /**
+     * Resolve dialect of a connection, the result is cached by JDBC URL
+     * @param conn The connection
+     * @return The dialect, OTHER when cannot resolve
+     */
+    public static Dialect of(Connection conn) {
+        if (conn == null) {
+            return OTHER;
+        }
+
+        try {
+            return of(conn.getMetaData());
+        } catch (SQLException ex) {
+            return OTHER;
+        }
+    }
+
+    public static Dialect of(DatabaseMetaData dbMeta) {
+        String url;
+        try {
+            url = dbMeta.getURL();
+        } catch (SQLException ex) {
+            url = null;
+        }
+
+        if (url == null) {
+            return fromProductName(JdbcUtils.getDatabaseProductName(dbMeta));
+        }
+
+        Dialect dialect = URL_DIALECTS.get(url);
+        if (dialect == null) {
+            String product = JdbcUtils.getDatabaseProductName(dbMeta);
+            dialect = fromProductName(product);
+            if (product != null) {
+                URL_DIALECTS.put(url, dialect);
+            }
+        }
+        return dialect;
+    }
+
+    /**
+     * Resolve dialect of a DataSource, a connection is borrowed on a first call only
+     * @param dataSource The DataSource
+     * @return The dialect
+     * @throws SQLException When cannot get a connection
+     */
+    public static Dialect of(DataSource dataSource) throws SQLException {
+        Dialect dialect = DS_DIALECTS.get(dataSource);
+        if (dialect == null) {
+            try (Connection conn = dataSource.getConnection()) {
+                dialect = of(conn);
+            }
+            DS_DIALECTS.put(dataSource, dialect);
+        }
+        return dialect;
+    }
+
+    /**
+     * Resolve dialect from a database product name
+     * @param productName The product name (DatabaseMetaData.getDatabaseProductName)
+     * @return The dialect
+     */
+    public static Dialect fromProductName(String productName) {
+        if (productName == null) {
+            return OTHER;
+        }
+
+        String name = productName.toLowerCase(Locale.US);
+        if (name.contains("mysql")) {
+            return MYSQL;
+        } else if (name.contains("oracle")) {
+            return ORACLE;
+        } else if (name.contains("sql server")) {
+            return MSSQL;
+        }
+        return OTHER;
+    }
+
+    public static void clearCache() {
+        URL_DIALECTS.clear();
+        DS_DIALECTS.clear();
+    }
+
+    /**
+     * Support INSERT ... VALUES (...),(...)
+     * @return true when supported
+     */
+    public boolean supportsMultiRowInsert() {
+        return multiRowInsert;
+    }
+
+    /**
+     * Support OFFSET n ROWS FETCH NEXT n ROWS ONLY (Oracle 12c, SQL Server 2012 or later)
+     * @return true when supported
+     */
+    public boolean supportsOffsetFetch() {
+        return offsetFetch;
+    }
+
+    /**
+     * Support LIMIT n OFFSET n
+     * @return true when supported
+     */
+    public boolean supportsLimit() {
+        return limit;
+    }
+
+    /**
+     * Maximum number of bind parameters per statement
+     * @return The number of parameters
+     */
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    /**
+     * Maximum number of rows of a multi-row INSERT statement
+     * @param columnCount The number of columns per row
+     * @return The number of rows, 1 when multi-row INSERT is not supported
+     */
+    public int getMaxInsertRows(int columnCount) {
+        if (!multiRowInsert || columnCount <= 0) {
+            return 1;
+        }
+
+        int rows = (maxParameters - 1) / columnCount;
+        if (this == MSSQL) {
+            rows = Math.min(rows, MSSQL_MAX_INSERT_ROWS);
+        }
+        return Math.max(rows, 1);
+    }
+
+    /**
+     * Escape character of LIKE pattern, same as {@link JdbcUtils#getEscapeChar(String)}
+     * @return The escape character
+     */
+    public char getLikeEscapeChar() {
+        return LIKE_ESCAPE_CHAR;
+    }
+
+    /**
+     * Quote an identifier (e.g. `name` on MySQL, [name] on SQL Server, "name" on Oracle)
+     * @param identifier The table or column name
+     * @return The quoted identifier
+     */
+    public String quote(String identifier) {
+        return openQuote + identifier + closeQuote;
+    }
+}
@@ -0,0 +1,159 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative long values with power of two buckets
+ * (bucket n count values from 2^(n-1) to 2^n - 1). Percentiles are the upper bound of a bucket,
+ * so the relative error is lower than 2x.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = buckets.get(i);
+        }
+        return new Snapshot(count.sum(), sum.sum(), max.get(), values);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    static int bucket(long value) {
+        return BUCKETS - Long.numberOfLeadingZeros(value);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return 0L;
+        }
+        return (bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1);
+    }
+
+    /**
+     * Immutable values of a histogram
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long[] buckets;
+
+        private Snapshot(long count, long sum, long max, long[] buckets) {
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.buckets = buckets;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return (count == 0L ? 0D : (double) sum / count);
+        }
+
+        public long getP50() {
+            return percentile(0.50D);
+        }
+
+        public long getP95() {
+            return percentile(0.95D);
+        }
+
+        public long getP99() {
+            return percentile(0.99D);
+        }
+
+        /**
+         * Get a value of percentile
+         * @param percentile The percentile (0.0 to 1.0)
+         * @return The upper bound of a bucket, not greater than max value
+         */
+        public long percentile(double percentile) {
+            long total = 0L;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0L) {
+                return 0L;
+            }
+
+            long rank = Math.max(1L, (long) Math.ceil(percentile * total));
+            long cumulative = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i];
+                if (cumulative >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", mean=" + Math.round(getMean()) + ", p50=" + getP50()
+                    + ", p95=" + getP95() + ", p99=" + getP99() + ", max=" + max + "}";
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnType;
+import io.github.jdevlibs.utils.cache.BoundedCache;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of table metadata (columns, column types and primary key) keyed by JDBC URL, schema and table.
+ * The first lookup of a table read a database catalog, next lookups are served from memory until
+ * the entry expired, evicted or invalidated.
+ * <pre>
+ * JdbcMetadataCache cache = JdbcMetadataCache.getDefault();
+ * Map&lt;String, ColumnType&gt; types = cache.getColumnSqlType(conn.getMetaData(), "HR.EMPLOYEE");
+ * </pre>
+ * Collections returned from this class are read-only and shared between callers, except column types which are
+ * copied per call (ColumnType is mutable). JdbcUtils table metadata methods read through {@link #getDefault()},
+ * call {@link #invalidate(DatabaseMetaData, String)} after a table is altered.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class JdbcMetadataCache {
+    public static final int DEFAULT_MAX_TABLES = 1024;
+    public static final long DEFAULT_TTL_MINUTES = 30L;
+
+    private static final String COL_NAME = "COLUMN_NAME";
+    private static final JdbcMetadataCache DEFAULT = new JdbcMetadataCache();
+
+    private final BoundedCache<TableKey, TableMetadata> cache;
+
+    public JdbcMetadataCache() {
+        this(DEFAULT_MAX_TABLES, DEFAULT_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Create metadata cache
+     * @param maxTables The maximum number of cached tables
+     * @param ttl The time to live of a table metadata, zero or negative never expire
+     * @param unit The unit of ttl
+     */
+    public JdbcMetadataCache(int maxTables, long ttl, TimeUnit unit) {
+        this.cache = new BoundedCache<>(maxTables, ttl, unit);
+    }
+
+    /**
+     * Get shared metadata cache
+     * @return The shared instance
+     */
+    public static JdbcMetadataCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Verify that table name are present in the Database
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table for verify
+     * @return true when table is exists
+     */
+    public boolean existsTable(DatabaseMetaData dbMeta, String table) {
+        return !getTable(dbMeta, table).columns.isEmpty();
+    }
+
+    public List<String> getColumns(DatabaseMetaData dbMeta, String table) {
+        return getTable(dbMeta, table).columns;
+    }
+
+    public Map<String, Integer> getColumnType(DatabaseMetaData dbMeta, String table) {
+        return getTable(dbMeta, table).columnTypes;
+    }
+
+    /**
+     * Get column types of a table, ColumnType objects are copies which a caller can modify
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table name
+     * @return The column types
+     */
+    public Map<String, ColumnType> getColumnSqlType(DatabaseMetaData dbMeta, String table) {
+        Map<String, ColumnType> types = getTable(dbMeta, table).columnSqlTypes;
+        Map<String, ColumnType> copies = new LinkedHashMap<>(types.size() * 2);
+        for (Map.Entry<String, ColumnType> entry : types.entrySet()) {
+            ColumnType type = entry.getValue();
+            copies.put(entry.getKey(), new ColumnType(type.getType(), type.getDigit()));
+        }
+        return Collections.unmodifiableMap(copies);
+    }
+
+    /**
+     * Get auto-increment (identity) and generated columns, IS_AUTOINCREMENT or IS_GENERATEDCOLUMN is YES
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table name
+     * @return The generated columns, empty when a driver does not report them
+     */
+    public Set<String> getGeneratedColumns(DatabaseMetaData dbMeta, String table) {
+        return getTable(dbMeta, table).generatedColumns;
+    }
+
+    /**
+     * Get primary key columns ordered by column name
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table name
+     * @return The primary key columns, a value is a primary key name
+     */
+    public Map<String, String> getPrimaryKey(DatabaseMetaData dbMeta, String table) {
+        TableMetadata metadata = getTable(dbMeta, table);
+        Map<String, String> keys = metadata.primaryKey;
+        if (keys == null) {
+            keys = Collections.unmodifiableMap(loadPrimaryKey(dbMeta, metadata.key, false));
+            metadata.primaryKey = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Get primary key columns ordered by KEY_SEQ (a column order of a primary key index)
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table name
+     * @return The primary key columns, a value is a primary key name
+     */
+    public Map<String, String> getPrimaryKeyInOrder(DatabaseMetaData dbMeta, String table) {
+        TableMetadata metadata = getTable(dbMeta, table);
+        Map<String, String> keys = metadata.primaryKeyInOrder;
+        if (keys == null) {
+            keys = Collections.unmodifiableMap(loadPrimaryKey(dbMeta, metadata.key, true));
+            metadata.primaryKeyInOrder = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Remove cached metadata of a table
+     * @param dbMeta the DatabaseMetaData object
+     * @param table The table name
+     */
+    public void invalidate(DatabaseMetaData dbMeta, String table) {
+        TableKey key = createKey(dbMeta, table);
+        if (key != null) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Remove cached metadata of all tables of a database
+     * @param url The JDBC URL
+     */
+    public void invalidate(String url) {
+        cache.removeIf(key -> Objects.equals(key.url, url));
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    public void resetStatistics() {
+        cache.resetStatistics();
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcMetadataCache [size=" + size() + ", hitCount=" + getHitCount()
+                + ", missCount=" + getMissCount() + ", evictionCount=" + getEvictionCount() + "]";
+    }
+
+    /**
+     * Get cached metadata, a table without a JDBC URL or failed to load is read without caching
+     */
+    private TableMetadata getTable(DatabaseMetaData dbMeta, String table) {
+        TableKey key = createKey(dbMeta, table);
+        TableMetadata metadata = null;
+        if (key != null) {
+            metadata = cache.get(key, k -> loadTable(dbMeta, k));
+        } else if (dbMeta != null && table != null && !table.isEmpty()) {
+            key = new TableKey("", JdbcUtils.getSchemaName(dbMeta, table), JdbcUtils.getTableName(table));
+            metadata = loadTable(dbMeta, key);
+        }
+
+        if (metadata == null) {
+            // columns cannot be read, a primary key is still read on demand
+            metadata = new TableMetadata(key, Collections.emptyList(), Collections.emptyMap(),
+                    Collections.emptyMap(), Collections.emptySet());
+        }
+        return metadata;
+    }
+
+    private static TableKey createKey(DatabaseMetaData dbMeta, String table) {
+        if (dbMeta == null || table == null || table.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String url = dbMeta.getURL();
+            if (url == null) {
+                return null;
+            }
+            return new TableKey(url, JdbcUtils.getSchemaName(dbMeta, table), JdbcUtils.getTableName(table));
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    private static TableMetadata loadTable(DatabaseMetaData dbMeta, TableKey key) {
+        List<String> columns = new ArrayList<>();
+        Map<String, Integer> columnTypes = new LinkedHashMap<>();
+        Map<String, ColumnType> columnSqlTypes = new LinkedHashMap<>();
+        Set<String> generatedColumns = new LinkedHashSet<>();
+
+        ResultSet rs = null;
+        try {
+            rs = dbMeta.getColumns(null, key.schema, key.table, null);
+            // JDBC 4.0 drivers may not return IS_AUTOINCREMENT/IS_GENERATEDCOLUMN
+            ResultSetMetaData rsMeta = rs.getMetaData();
+            boolean autoIncrement = hasColumn(rsMeta, "IS_AUTOINCREMENT");
+            boolean generated = hasColumn(rsMeta, "IS_GENERATEDCOLUMN");
+            while (rs.next()) {
+                String column = rs.getString(COL_NAME);
+                int type = rs.getInt("DATA_TYPE");
+                columns.add(column);
+                columnTypes.put(column, type);
+                columnSqlTypes.put(column, new ColumnType(type, rs.getInt("DECIMAL_DIGITS")));
+                if (autoIncrement && "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT"))
+                        || generated && "YES".equalsIgnoreCase(rs.getString("IS_GENERATEDCOLUMN"))) {
+                    generatedColumns.add(column);
+                }
+            }
+        } catch (SQLException ex) {
+            //Don't cache a failure
+            return null;
+        } finally {
+            JdbcUtils.close(rs);
+        }
+
+        return new TableMetadata(key, Collections.unmodifiableList(columns), Collections.unmodifiableMap(columnTypes),
+                Collections.unmodifiableMap(columnSqlTypes), Collections.unmodifiableSet(generatedColumns));
+    }
+
+    private static boolean hasColumn(ResultSetMetaData rsMeta, String column) throws SQLException {
+        if (rsMeta == null) {
+            return false;
+        }
+        for (int i = 1; i <= rsMeta.getColumnCount(); i++) {
+            if (column.equalsIgnoreCase(rsMeta.getColumnName(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, String> loadPrimaryKey(DatabaseMetaData dbMeta, TableKey key, boolean ordered) {
+        if (key == null) {
+            return Collections.emptyMap();
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        ResultSet rs = null;
+        try {
+            rs = dbMeta.getPrimaryKeys(null, key.schema, key.table);
+            while (rs.next()) {
+                int sequence = (ordered ? rs.getInt("KEY_SEQ") : 0);
+                rows.add(new Object[] {sequence, rs.getString(COL_NAME), rs.getString("PK_NAME")});
+            }
+        } catch (SQLException ex) {
+            //Ignore
+        } finally {
+            JdbcUtils.close(rs);
+        }
+
+        Map<String, String> keys;
+        if (ordered) {
+            rows.sort(Comparator.comparingInt(row -> (Integer) row[0]));
+            keys = new LinkedHashMap<>();
+        } else {
+            keys = new TreeMap<>();
+        }
+        for (Object[] row : rows) {
+            keys.put((String) row[1], (String) row[2]);
+        }
+        return keys;
+    }
+
+    private static final class TableKey {
+        private final String url;
+        private final String schema;
+        private final String table;
+        private final int hash;
+
+        private TableKey(String url, String schema, String table) {
+            this.url = url;
+            this.schema = schema;
+            this.table = table;
+            this.hash = Objects.hash(url, schema, table);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TableKey)) {
+                return false;
+            }
+
+            TableKey other = (TableKey) obj;
+            return hash == other.hash && url.equals(other.url) && Objects.equals(schema, other.schema)
+                    && Objects.equals(table, other.table);
+        }
+    }
+
+    private static final class TableMetadata {
+        private final TableKey key;
+        private final List<String> columns;
+        private final Map<String, Integer> columnTypes;
+        private final Map<String, ColumnType> columnSqlTypes;
+        private final Set<String> generatedColumns;
+        private volatile Map<String, String> primaryKey;
+        private volatile Map<String, String> primaryKeyInOrder;
+
+        private TableMetadata(TableKey key, List<String> columns, Map<String, Integer> columnTypes,
+                              Map<String, ColumnType> columnSqlTypes, Set<String> generatedColumns) {
+            this.key = key;
+            this.columns = columns;
+            this.columnTypes = columnTypes;
+            this.columnSqlTypes = columnSqlTypes;
+            this.generatedColumns = generatedColumns;
+        }
+    }
+}
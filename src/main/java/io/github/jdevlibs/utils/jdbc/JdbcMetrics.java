@@ -0,0 +1,637 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.Exceptions;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in JDBC instrumentation. A wrapped Connection return wrapped Statement/PreparedStatement/ResultSet,
+ * each SQL fingerprint (literals replaced with ?) has histograms of execute time, fetch time (ResultSet.next),
+ * rows read and batch size.
+ * <pre>
+ * JdbcMetrics metrics = JdbcMetrics.getDefault();
+ * metrics.registerMBean("app");
+ *
+ * Connection conn = metrics.wrap(dataSource.getConnection());
+ * ...
+ * for (JdbcMetrics.StatementStats stats : metrics.getStatements()) {
+ *     System.out.println(stats);
+ * }
+ * </pre>
+ * Times are in nanoseconds. Wrappers are dynamic proxies, every JDBC call pay a reflective call,
+ * so use it where visibility is worth a small overhead. Wrapped objects can be closed with JdbcUtils.close.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class JdbcMetrics implements JdbcMetricsMXBean {
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+    public static final String OTHER_STATEMENTS = "<other>";
+    /** A fingerprint of a Statement which SQL is unknown (e.g. executeBatch without addBatch) */
+    public static final String UNKNOWN_STATEMENT = "<unknown>";
+
+    private static final JdbcMetrics DEFAULT = new JdbcMetrics();
+
+    private final int maxStatements;
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private ObjectName objectName;
+
+    public JdbcMetrics() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * Create metrics registry
+     * @param maxStatements The maximum number of SQL fingerprints, others are counted as {@link #OTHER_STATEMENTS}
+     */
+    public JdbcMetrics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public static JdbcMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Wrap a connection, statements created by a connection are instrumented
+     * @param conn The connection
+     * @return The instrumented connection
+     */
+    public Connection wrap(Connection conn) {
+        if (conn == null || Proxy.isProxyClass(conn.getClass())
+                && Proxy.getInvocationHandler(conn) instanceof ConnectionHandler) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn));
+    }
+
+    /**
+     * Wrap a prepared statement
+     * @param ps The prepared statement
+     * @param sql The SQL of a statement
+     * @return The instrumented statement
+     */
+    public PreparedStatement wrap(PreparedStatement ps, String sql) {
+        return (PreparedStatement) wrapStatement(ps, null, sql);
+    }
+
+    /**
+     * Register this registry to a platform MBean server as io.github.jdevlibs:type=JdbcMetrics,name={name}
+     * @param name The name of this registry
+     */
+    public synchronized void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName newName = new ObjectName("io.github.jdevlibs:type=JdbcMetrics,name=" + ObjectName.quote(name));
+            if (server.isRegistered(newName)) {
+                server.unregisterMBean(newName);
+            }
+            server.registerMBean(this, newName);
+            objectName = newName;
+        } catch (JMException ex) {
+            throw Exceptions.toRuntimeException(ex);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ex) {
+            //Ignore
+        }
+        objectName = null;
+    }
+
+    @Override
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    @Override
+    public long getExecuteCount() {
+        long total = 0L;
+        for (StatementMetrics metrics : statements.values()) {
+            total += metrics.execute.getCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long total = 0L;
+        for (StatementMetrics metrics : statements.values()) {
+            total += metrics.errors.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Get snapshot of all statements ordered by total execute time (slowest first)
+     * @return The statement statistics
+     */
+    @Override
+    public List<StatementStats> getStatements() {
+        List<StatementStats> result = new ArrayList<>(statements.size());
+        for (Map.Entry<String, StatementMetrics> entry : statements.entrySet()) {
+            result.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        result.sort(Comparator.comparingLong((StatementStats stats) -> stats.getExecuteTime().getSum()).reversed());
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Get snapshot of a statement
+     * @param sql The SQL or fingerprint
+     * @return The statement statistics, null when a statement is never executed
+     */
+    public StatementStats getStatement(String sql) {
+        String fingerprint = fingerprint(sql);
+        StatementMetrics metrics = statements.get(fingerprint);
+        return (metrics == null ? null : metrics.snapshot(fingerprint));
+    }
+
+    @Override
+    public void reset() {
+        statements.clear();
+    }
+
+    /**
+     * Normalize SQL, comments are removed, whitespaces are collapsed, literals are replaced with ?
+     * and a list of ? (e.g. IN (?, ?, ?)) is collapsed to (?)
+     * @param sql The SQL
+     * @return The SQL fingerprint
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "";
+        }
+
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean space = false;
+        int i = 0;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipTo(sql, i + 2, "\n");
+                space = true;
+                continue;
+            }
+            if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipTo(sql, i + 2, "*/");
+                space = true;
+                continue;
+            }
+            if (Character.isWhitespace(ch)) {
+                space = true;
+                i++;
+                continue;
+            }
+
+            if (space && sb.length() > 0) {
+                sb.append(' ');
+            }
+            space = false;
+
+            if (ch == '\'') {
+                i = skipString(sql, i + 1);
+                appendParameter(sb);
+            } else if (ch == '"' || ch == '`' || ch == '[') {
+                char close = (ch == '[' ? ']' : ch);
+                int end = sql.indexOf(close, i + 1);
+                end = (end < 0 ? length : end + 1);
+                sb.append(sql, i, end);
+                i = end;
+            } else if (isNumberStart(sql, i) && (sb.length() == 0 || !isIdentifierPart(sb.charAt(sb.length() - 1)))) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendParameter(sb);
+            } else if (ch == '?') {
+                appendParameter(sb);
+                i++;
+            } else {
+                sb.append(ch);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isNumberStart(String sql, int index) {
+        char ch = sql.charAt(index);
+        if (ch >= '0' && ch <= '9') {
+            return true;
+        }
+        return ch == '.' && index + 1 < sql.length() && Character.isDigit(sql.charAt(index + 1));
+    }
+
+    private static boolean isIdentifierPart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '#';
+    }
+
+    private static void appendParameter(StringBuilder sb) {
+        int length = sb.length();
+        if (length >= 3 && sb.charAt(length - 1) == ' ' && sb.charAt(length - 2) == ',' && sb.charAt(length - 3) == '?') {
+            sb.setLength(length - 2);
+        } else if (length >= 2 && sb.charAt(length - 1) == ',' && sb.charAt(length - 2) == '?') {
+            sb.setLength(length - 1);
+        } else {
+            sb.append('?');
+        }
+    }
+
+    private static int skipTo(String sql, int from, String end) {
+        int index = sql.indexOf(end, from);
+        return (index < 0 ? sql.length() : index + end.length());
+    }
+
+    private static int skipString(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private String toFingerprint(String sql) {
+        if (sql == null) {
+            return UNKNOWN_STATEMENT;
+        }
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = fingerprint(sql);
+            if (fingerprints.size() < maxStatements * 4) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    private StatementMetrics metrics(String sql) {
+        String fingerprint = toFingerprint(sql);
+        StatementMetrics metrics = statements.get(fingerprint);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (statements.size() >= maxStatements) {
+            fingerprint = OTHER_STATEMENTS;
+        }
+        return statements.computeIfAbsent(fingerprint, key -> new StatementMetrics());
+    }
+
+    private Statement wrapStatement(Statement stmt, Connection conn, String sql) {
+        if (stmt == null) {
+            return null;
+        }
+
+        Class<?> type = Statement.class;
+        if (stmt instanceof CallableStatement) {
+            type = CallableStatement.class;
+        } else if (stmt instanceof PreparedStatement) {
+            type = PreparedStatement.class;
+        }
+        return (Statement) Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(),
+                new Class<?>[]{type}, new StatementHandler(stmt, conn, sql));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        return method.getDeclaringClass() == Object.class;
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Object target, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Instrumented[" + target + "]";
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+
+            Object result = JdbcMetrics.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return wrapStatement((Statement) result, (Connection) proxy, (String) args[0]);
+                case "createStatement":
+                    return wrapStatement((Statement) result, (Connection) proxy, null);
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection conn;
+        private final String sql;
+        private int batchRows;
+        private String batchSql;
+        /** The SQL of the last execute, for getResultSet of a Statement */
+        private String lastSql;
+
+        private StatementHandler(Statement target, Connection conn, String sql) {
+            this.target = target;
+            this.conn = conn;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    return execute(proxy, method, args, statementSql(args));
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeBatch(method, args);
+                case "addBatch":
+                    batchRows++;
+                    if (args != null && args.length > 0 && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    return JdbcMetrics.invoke(target, method, args);
+                case "clearBatch":
+                    batchRows = 0;
+                    batchSql = null;
+                    return JdbcMetrics.invoke(target, method, args);
+                case "getResultSet":
+                    return wrapResultSet((ResultSet) JdbcMetrics.invoke(target, method, args), proxy,
+                            metrics(lastSql != null ? lastSql : sql));
+                case "getConnection":
+                    return (conn != null ? conn : JdbcMetrics.invoke(target, method, args));
+                default:
+                    return JdbcMetrics.invoke(target, method, args);
+            }
+        }
+
+        private String statementSql(Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            return sql;
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args, String executeSql) throws Throwable {
+            lastSql = executeSql;
+            StatementMetrics metrics = metrics(executeSql);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = JdbcMetrics.invoke(target, method, args);
+            } catch (Throwable ex) {
+                metrics.errors.increment();
+                throw ex;
+            } finally {
+                metrics.execute.record(System.nanoTime() - start);
+            }
+
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet) result, proxy, metrics);
+            }
+            return result;
+        }
+
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            lastSql = (sql != null ? sql : batchSql);
+            StatementMetrics metrics = metrics(lastSql);
+            metrics.batch.record(batchRows);
+            batchRows = 0;
+            batchSql = null;
+            long start = System.nanoTime();
+            try {
+                return JdbcMetrics.invoke(target, method, args);
+            } catch (Throwable ex) {
+                metrics.errors.increment();
+                throw ex;
+            } finally {
+                metrics.execute.record(System.nanoTime() - start);
+            }
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs, Object statement, StatementMetrics metrics) {
+            if (rs == null) {
+                return null;
+            }
+            return (ResultSet) Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(rs, (Statement) statement, metrics));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Statement statement;
+        private final StatementMetrics metrics;
+        private long rows;
+        private long fetchNanos;
+        private boolean finished;
+
+        private ResultSetHandler(ResultSet target, Statement statement, StatementMetrics metrics) {
+            this.target = target;
+            this.statement = statement;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method)) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+
+            switch (method.getName()) {
+                case "next":
+                    return next();
+                case "close":
+                    finish();
+                    return JdbcMetrics.invoke(target, method, args);
+                case "getStatement":
+                    return statement;
+                default:
+                    return JdbcMetrics.invoke(target, method, args);
+            }
+        }
+
+        private Object next() throws Throwable {
+            long start = System.nanoTime();
+            boolean hasRow;
+            try {
+                hasRow = target.next();
+            } finally {
+                fetchNanos += System.nanoTime() - start;
+            }
+
+            if (hasRow) {
+                rows++;
+            } else {
+                finish();
+            }
+            return hasRow;
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                metrics.rows.record(rows);
+                metrics.fetch.record(fetchNanos);
+            }
+        }
+    }
+
+    private static final class StatementMetrics {
+        private final Histogram execute = new Histogram();
+        private final Histogram fetch = new Histogram();
+        private final Histogram rows = new Histogram();
+        private final Histogram batch = new Histogram();
+        private final LongAdder errors = new LongAdder();
+
+        private StatementStats snapshot(String sql) {
+            return new StatementStats(sql, errors.sum(), execute.snapshot(), fetch.snapshot(),
+                    rows.snapshot(), batch.snapshot());
+        }
+    }
+
+    /**
+     * Statistics of a SQL fingerprint, times are in nanoseconds
+     */
+    public static final class StatementStats {
+        private final String sql;
+        private final long errorCount;
+        private final Histogram.Snapshot executeTime;
+        private final Histogram.Snapshot fetchTime;
+        private final Histogram.Snapshot rows;
+        private final Histogram.Snapshot batchSize;
+
+        private StatementStats(String sql, long errorCount, Histogram.Snapshot executeTime,
+                               Histogram.Snapshot fetchTime, Histogram.Snapshot rows, Histogram.Snapshot batchSize) {
+            this.sql = sql;
+            this.errorCount = errorCount;
+            this.executeTime = executeTime;
+            this.fetchTime = fetchTime;
+            this.rows = rows;
+            this.batchSize = batchSize;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getExecuteCount() {
+            return executeTime.getCount();
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public Histogram.Snapshot getExecuteTime() {
+            return executeTime;
+        }
+
+        /**
+         * Get time of ResultSet.next per query
+         * @return The fetch time histogram
+         */
+        public Histogram.Snapshot getFetchTime() {
+            return fetchTime;
+        }
+
+        /**
+         * Get rows read per query
+         * @return The rows histogram
+         */
+        public Histogram.Snapshot getRows() {
+            return rows;
+        }
+
+        /**
+         * Get rows per executeBatch
+         * @return The batch size histogram
+         */
+        public Histogram.Snapshot getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return "StatementStats{sql=" + sql + ", errors=" + errorCount + ", executeTime=" + executeTime
+                    + ", fetchTime=" + fetchTime + ", rows=" + rows + ", batchSize=" + batchSize + "}";
+        }
+    }
+}
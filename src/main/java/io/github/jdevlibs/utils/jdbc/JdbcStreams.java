@@ -0,0 +1,168 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.Exceptions;
+import io.github.jdevlibs.utils.JdbcUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy Stream/Iterator over a ResultSet cursor, rows are mapped one by one and never collected to a List.
+ * <pre>
+ * try (Stream&lt;Employee&gt; stream = JdbcStreams.stream(ps, Employee.class, 1000)) {
+ *     stream.forEach(writer::write);
+ * }
+ * </pre>
+ * The stream must be closed, closing a stream close a ResultSet. Some drivers need extra settings for
+ * cursor streaming (e.g. PostgreSQL need auto-commit off, MySQL need fetch size Integer.MIN_VALUE).
+ * SQLException while reading a row is thrown as RuntimeException.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class JdbcStreams {
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private JdbcStreams() {
+    }
+
+    /**
+     * Execute a query and stream rows as bean
+     * @param ps The prepared statement with bound parameters
+     * @param type The bean class
+     * @param fetchSize The number of rows fetched from a database per round trip
+     * @param <T> The bean type
+     * @return Lazy stream of bean
+     * @throws SQLException When cannot execute a query
+     */
+    public static <T> Stream<T> stream(PreparedStatement ps, Class<T> type, int fetchSize) throws SQLException {
+        ResultSet rs = executeQuery(ps, fetchSize);
+        try {
+            return stream(rs, BeanRowMapper.of(type, rs.getMetaData()));
+        } catch (SQLException ex) {
+            JdbcUtils.close(rs);
+            throw ex;
+        }
+    }
+
+    /**
+     * Execute a query and stream mapped rows
+     * @param ps The prepared statement with bound parameters
+     * @param mapper The row mapper
+     * @param fetchSize The number of rows fetched from a database per round trip
+     * @param <T> The result type
+     * @return Lazy stream of mapped rows
+     * @throws SQLException When cannot execute a query
+     */
+    public static <T> Stream<T> stream(PreparedStatement ps, RowMapper<T> mapper, int fetchSize) throws SQLException {
+        return stream(executeQuery(ps, fetchSize), mapper);
+    }
+
+    public static <T> Stream<T> stream(ResultSet rs, Class<T> type) throws SQLException {
+        return stream(rs, BeanRowMapper.of(type, rs.getMetaData()));
+    }
+
+    public static <T> Stream<T> stream(ResultSet rs, RowMapper<T> mapper) {
+        ResultSetIterator<T> iterator = new ResultSetIterator<>(rs, mapper);
+        // a mapper may return null (e.g. rs.getString(1) of a NULL column)
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    public static <T> ResultSetIterator<T> iterator(ResultSet rs, Class<T> type) throws SQLException {
+        return new ResultSetIterator<>(rs, BeanRowMapper.of(type, rs.getMetaData()));
+    }
+
+    public static <T> ResultSetIterator<T> iterator(ResultSet rs, RowMapper<T> mapper) {
+        return new ResultSetIterator<>(rs, mapper);
+    }
+
+    private static ResultSet executeQuery(PreparedStatement ps, int fetchSize) throws SQLException {
+        ps.setFetchSize(fetchSize == 0 ? DEFAULT_FETCH_SIZE : fetchSize);
+        return ps.executeQuery();
+    }
+
+    /**
+     * Iterator over a ResultSet, The cursor move forward when hasNext is called.
+     * The ResultSet is closed when all rows are read or when close is called.
+     * @param <T> The result type
+     */
+    public static final class ResultSetIterator<T> implements Iterator<T>, AutoCloseable {
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private boolean fetched;
+        private boolean hasRow;
+        private boolean closed;
+
+        private ResultSetIterator(ResultSet rs, RowMapper<T> mapper) {
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (!fetched) {
+                try {
+                    hasRow = rs.next();
+                    fetched = true;
+                } catch (SQLException ex) {
+                    close();
+                    throw Exceptions.toRuntimeException(ex);
+                }
+                if (!hasRow) {
+                    close();
+                }
+            }
+            return hasRow;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            fetched = false;
+            try {
+                return mapper.map(rs);
+            } catch (SQLException ex) {
+                close();
+                throw Exceptions.toRuntimeException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                hasRow = false;
+                JdbcUtils.close(rs);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keyset (seek) pagination. A next page is read with a predicate on the key of a last row
+ * (e.g. WHERE ID &gt; ?) instead of OFFSET, so every page cost the same as a first page.
+ * <pre>
+ * KeysetPagination pagination = KeysetPagination.of("SELECT * FROM ORDERS WHERE STATUS = ?",
+ *         Dialect.of(conn), "CREATED_AT DESC", "ORDER_ID").pageSize(50);
+ *
+ * KeysetPagination.Page&lt;Order&gt; page = pagination.fetch(conn, token, Order.class, "NEW");
+ * String nextToken = page.getNextToken(); // null on a last page
+ * </pre>
+ * A base query is wrapped as a subquery, it must select all key columns and must not have ORDER BY.
+ * Key columns must be NOT NULL and unique together (e.g. end with a primary key).
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class KeysetPagination {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final String ALIAS = "p_";
+    private static final String DESC = " DESC";
+    private static final String ASC = " ASC";
+
+    private final String baseSql;
+    private final Dialect dialect;
+    private final String[] keys;
+    private final boolean[] descending;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private String firstSql;
+    private String nextSql;
+
+    private KeysetPagination(String baseSql, Dialect dialect, String[] keyColumns) {
+        if (keyColumns == null || keyColumns.length == 0) {
+            throw new IllegalArgumentException("Key columns is required");
+        }
+
+        this.baseSql = baseSql;
+        this.dialect = (dialect == null ? Dialect.OTHER : dialect);
+        this.keys = new String[keyColumns.length];
+        this.descending = new boolean[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            String key = keyColumns[i].trim();
+            String upper = key.toUpperCase(Locale.US);
+            if (upper.endsWith(DESC)) {
+                descending[i] = true;
+                key = key.substring(0, key.length() - DESC.length()).trim();
+            } else if (upper.endsWith(ASC)) {
+                key = key.substring(0, key.length() - ASC.length()).trim();
+            }
+            int dot = key.lastIndexOf('.');
+            keys[i] = (dot < 0 ? key : key.substring(dot + 1));
+        }
+    }
+
+    /**
+     * Create pagination of a query
+     * @param baseSql The base query without ORDER BY
+     * @param dialect The database dialect
+     * @param keyColumns The ordering key columns, a column can end with DESC (e.g. "CREATED_AT DESC")
+     * @return The pagination
+     */
+    public static KeysetPagination of(String baseSql, Dialect dialect, String... keyColumns) {
+        return new KeysetPagination(baseSql, dialect, keyColumns);
+    }
+
+    /**
+     * Create pagination of a whole table ordered by its primary key (in KEY_SEQ order, so a primary key index
+     * can serve each page)
+     * @param conn The connection
+     * @param table The table name (e.g. TABLE or SCHEMA.TABLE)
+     * @return The pagination
+     * @throws SQLException When a table has no primary key
+     */
+    public static KeysetPagination of(Connection conn, String table) throws SQLException {
+        Map<String, String> primaryKey = JdbcMetadataCache.getDefault()
+                .getPrimaryKeyInOrder(conn.getMetaData(), table);
+        if (primaryKey.isEmpty()) {
+            throw new SQLException("Table " + table + " has no primary key");
+        }
+        return of("SELECT * FROM " + table, Dialect.of(conn), primaryKey.keySet().toArray(new String[0]));
+    }
+
+    public KeysetPagination pageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        this.pageSize = pageSize;
+        this.firstSql = null;
+        this.nextSql = null;
+        return this;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Get SQL of a page, parameters of a base query are bound first then key values of a seek predicate
+     * @param first true for a first page (without seek predicate)
+     * @return The SQL
+     */
+    public String getSql(boolean first) {
+        if (first) {
+            if (firstSql == null) {
+                firstSql = buildSql(false);
+            }
+            return firstSql;
+        }
+
+        if (nextSql == null) {
+            nextSql = buildSql(true);
+        }
+        return nextSql;
+    }
+
+    public <T> Page<T> fetch(Connection conn, String token, Class<T> type, Object... params) throws SQLException {
+        return fetch(conn, token, new LazyBeanMapper<>(type), params);
+    }
+
+    /**
+     * Read a page
+     * @param conn The connection
+     * @param token The continuation token of a previous page, null or empty for a first page
+     * @param mapper The row mapper
+     * @param params The parameters of a base query
+     * @param <T> The result type
+     * @return The page
+     * @throws SQLException When cannot execute a query
+     */
+    public <T> Page<T> fetch(Connection conn, String token, RowMapper<T> mapper, Object... params) throws SQLException {
+        boolean first = (token == null || token.isEmpty());
+        Object[] seek = (first ? null : decodeToken(token));
+        if (seek != null && seek.length != keys.length) {
+            throw new SQLException("Token has " + seek.length + " keys, expected " + keys.length);
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(getSql(first))) {
+            ps.setFetchSize(pageSize + 1);
+            int index = 1;
+            if (params != null) {
+                for (Object param : params) {
+                    SqlBinder.bindObject(ps, index++, param);
+                }
+            }
+            if (seek != null) {
+                bindSeek(ps, index, seek);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return readPage(rs, mapper);
+            }
+        }
+    }
+
+    /**
+     * Encode key values to a URL-safe continuation token
+     * @param keyValues The key values
+     * @return The token
+     */
+    public static String encodeToken(Object... keyValues) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + keyValues.length * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(keyValues.length);
+            for (Object value : keyValues) {
+                writeKey(out, value);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decode key values of a continuation token
+     * @param token The token
+     * @return The key values
+     * @throws SQLException When a token is invalid
+     */
+    public static Object[] decodeToken(String token) throws SQLException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            Object[] values = new Object[in.readUnsignedByte()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readKey(in);
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new SQLException("Invalid continuation token", ex);
+        }
+    }
+
+    private <T> Page<T> readPage(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        int[] keyIndexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keyIndexes[i] = rs.findColumn(keys[i]);
+        }
+
+        List<T> rows = new ArrayList<>(Math.min(pageSize, 1024));
+        Object[] lastKey = null;
+        boolean hasNext = false;
+        while (rs.next()) {
+            if (rows.size() == pageSize) {
+                hasNext = true;
+                break;
+            }
+            rows.add(mapper.map(rs));
+            if (rows.size() == pageSize) {
+                lastKey = new Object[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    lastKey[i] = rs.getObject(keyIndexes[i]);
+                }
+            }
+        }
+
+        String nextToken = (hasNext ? encodeToken(lastKey) : null);
+        return new Page<>(Collections.unmodifiableList(rows), nextToken);
+    }
+
+    private void bindSeek(PreparedStatement ps, int index, Object[] seek) throws SQLException {
+        if (keys.length > 1) {
+            ps.setObject(index++, seek[0]);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                ps.setObject(index++, seek[j]);
+            }
+        }
+    }
+
+    private String buildSql(boolean seek) {
+        int limit = pageSize + 1;
+        StringBuilder sb = new StringBuilder(baseSql.length() + 64 + keys.length * 48);
+        sb.append("SELECT ");
+        if (dialect == Dialect.MSSQL) {
+            sb.append("TOP ").append(limit).append(' ');
+        }
+        sb.append("* FROM (").append(baseSql).append(") ").append(ALIAS);
+        if (seek) {
+            sb.append(" WHERE ");
+            appendSeekPredicate(sb);
+        }
+
+        sb.append(" ORDER BY ");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ALIAS).append('.').append(keys[i]);
+            if (descending[i]) {
+                sb.append(DESC);
+            }
+        }
+
+        if (dialect.supportsLimit()) {
+            sb.append(" LIMIT ").append(limit);
+        } else if (dialect != Dialect.MSSQL) {
+            sb.append(" FETCH FIRST ").append(limit).append(" ROWS ONLY");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * (k1 &gt; ?) OR (k1 = ? AND k2 &gt; ?) ..., with a leading k1 &gt;= ? so a database can use an index range scan
+     */
+    private void appendSeekPredicate(StringBuilder sb) {
+        if (keys.length > 1) {
+            sb.append(ALIAS).append('.').append(keys[0]).append(descending[0] ? " <= ?" : " >= ?").append(" AND (");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(" OR ");
+            }
+            sb.append('(');
+            for (int j = 0; j < i; j++) {
+                sb.append(ALIAS).append('.').append(keys[j]).append(" = ? AND ");
+            }
+            sb.append(ALIAS).append('.').append(keys[i]).append(descending[i] ? " < ?" : " > ?");
+            sb.append(')');
+        }
+        if (keys.length > 1) {
+            sb.append(')');
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            throw new IllegalArgumentException("Key value cannot be null");
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            out.writeByte('L');
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            out.writeByte('D');
+            out.writeUTF(value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte('F');
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Timestamp) {
+            out.writeByte('T');
+            out.writeUTF(((Timestamp) value).toLocalDateTime().toString());
+        } else if (value instanceof LocalDateTime) {
+            out.writeByte('T');
+            out.writeUTF(value.toString());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte('d');
+            out.writeUTF(((java.sql.Date) value).toLocalDate().toString());
+        } else if (value instanceof LocalDate) {
+            out.writeByte('d');
+            out.writeUTF(value.toString());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte('T');
+            out.writeUTF(new Timestamp(((java.util.Date) value).getTime()).toLocalDateTime().toString());
+        } else {
+            out.writeByte('S');
+            out.writeUTF(value.toString());
+        }
+    }
+
+    private static Object readKey(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'L':
+                return in.readLong();
+            case 'D':
+                return new BigDecimal(in.readUTF());
+            case 'F':
+                return in.readDouble();
+            case 'T':
+                return Timestamp.valueOf(LocalDateTime.parse(in.readUTF()));
+            case 'd':
+                return java.sql.Date.valueOf(LocalDate.parse(in.readUTF()));
+            case 'S':
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown key type " + tag);
+        }
+    }
+
+    /**
+     * Rows of a page and a continuation token of a next page
+     * @param <T> The row type
+     */
+    public static final class Page<T> {
+        private final List<T> rows;
+        private final String nextToken;
+
+        private Page(List<T> rows, String nextToken) {
+            this.rows = rows;
+            this.nextToken = nextToken;
+        }
+
+        public List<T> getRows() {
+            return rows;
+        }
+
+        /**
+         * Get token of a next page
+         * @return The token, null when this is a last page
+         */
+        public String getNextToken() {
+            return nextToken;
+        }
+
+        public boolean hasNext() {
+            return nextToken != null;
+        }
+
+        @Override
+        public String toString() {
+            return "Page{rows=" + rows.size() + ", nextToken=" + nextToken + "}";
+        }
+    }
+
+    /**
+     * Resolve a bean mapper on a first row, a ResultSet metadata is not known before executing
+     */
+    private static final class LazyBeanMapper<T> implements RowMapper<T> {
+        private final Class<T> type;
+        private RowMapper<T> mapper;
+
+        private LazyBeanMapper(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T map(ResultSet rs) throws SQLException {
+            if (mapper == null) {
+                mapper = BeanRowMapper.of(type, rs.getMetaData());
+            }
+            return mapper.map(rs);
+        }
+    }
+}
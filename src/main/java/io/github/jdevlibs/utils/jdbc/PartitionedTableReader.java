@@ -0,0 +1,488 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.Exceptions;
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnType;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read a whole table in parallel. The range of a numeric primary key (MIN/MAX) is split into partitions,
+ * each partition is read with its own connection from a DataSource.
+ * <pre>
+ * PartitionedTableReader reader = PartitionedTableReader.create(dataSource, "ORDERS")
+ *         .partitions(8)
+ *         .fetchSize(1000);
+ *
+ * long rows = reader.read((partition, row) -&gt; writers[partition].write(row));
+ *
+ * try (PartitionedTableReader.RowIterator iterator = reader.iterator(10000)) {
+ *     while (iterator.hasNext()) {
+ *         Object[] row = iterator.next();
+ *     }
+ * }
+ * </pre>
+ * A primary key is read from {@link JdbcUtils#getPrimaryKey} (cached), a table without a single numeric
+ * primary key need {@link #keyColumn(String)}. Row values are ordered by {@link #getColumns()}.
+ * Rows of different partitions are not ordered.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class PartitionedTableReader {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Object[] END = new Object[0];
+    private static final AtomicInteger THREAD_SEQ = new AtomicInteger();
+
+    private final DataSource dataSource;
+    private final String table;
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private String keyColumn;
+    private List<String> columns;
+    private ExecutorService executor;
+
+    protected PartitionedTableReader(DataSource dataSource, String table) {
+        this.dataSource = dataSource;
+        this.table = table;
+    }
+
+    public static PartitionedTableReader create(DataSource dataSource, String table) {
+        return new PartitionedTableReader(dataSource, table);
+    }
+
+    /**
+     * Set number of partitions (concurrent connections), default is number of CPU
+     * @param partitions The number of partitions
+     * @return This reader
+     */
+    public PartitionedTableReader partitions(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partitions must be greater than 0");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    public PartitionedTableReader fetchSize(int fetchSize) {
+        this.fetchSize = (fetchSize <= 0 ? DEFAULT_FETCH_SIZE : fetchSize);
+        return this;
+    }
+
+    /**
+     * Set a numeric column used to split a table, default is a primary key
+     * @param keyColumn The column name
+     * @return This reader
+     */
+    public PartitionedTableReader keyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+        return this;
+    }
+
+    /**
+     * Set columns to read, default is all table columns
+     * @param columns The column names
+     * @return This reader
+     */
+    public PartitionedTableReader columns(String... columns) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns)));
+        return this;
+    }
+
+    /**
+     * Set executor of partition tasks, default is a new fixed thread pool per read.
+     * A supplied executor is not shutdown.
+     * @param executor The executor
+     * @return This reader
+     */
+    public PartitionedTableReader executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Get columns of a row, available after {@link #plan()} or a first read when columns are not set
+     * @return The column names
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * Resolve a key column and split a key range into partitions
+     * @return The partitions, empty list when a table has no rows
+     * @throws SQLException When cannot read metadata, a table has no numeric key or cannot query MIN/MAX
+     */
+    public List<Partition> plan() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            DatabaseMetaData dbMeta = conn.getMetaData();
+            JdbcMetadataCache cache = JdbcMetadataCache.getDefault();
+            Map<String, ColumnType> tableTypes = cache.getColumnSqlType(dbMeta, table);
+            if (tableTypes.isEmpty()) {
+                throw new SQLException("Table " + table + " not found");
+            }
+
+            if (keyColumn == null) {
+                Map<String, String> keys = cache.getPrimaryKey(dbMeta, table);
+                if (keys.size() != 1) {
+                    throw new SQLException("Table " + table + " has no single-column primary key, set keyColumn");
+                }
+                keyColumn = keys.keySet().iterator().next();
+            }
+
+            Map<String, ColumnType> keyType = BatchWriter.selectColumns(table, tableTypes,
+                    Collections.singletonList(keyColumn));
+            if (!isNumeric(keyType.get(keyColumn).getType())) {
+                throw new SQLException("Column " + keyColumn + " of table " + table + " is not numeric");
+            }
+
+            if (columns == null) {
+                columns = Collections.unmodifiableList(new ArrayList<>(tableTypes.keySet()));
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + table)) {
+                if (!rs.next()) {
+                    return Collections.emptyList();
+                }
+                BigDecimal min = rs.getBigDecimal(1);
+                BigDecimal max = rs.getBigDecimal(2);
+                if (min == null || max == null) {
+                    return Collections.emptyList();
+                }
+                return split(min.setScale(0, RoundingMode.FLOOR).longValueExact(),
+                        max.setScale(0, RoundingMode.CEILING).longValueExact(), partitions);
+            } catch (ArithmeticException ex) {
+                throw new SQLException("Key range of table " + table + " is out of long range", ex);
+            }
+        }
+    }
+
+    /**
+     * Read all partitions concurrently. A handler is called by many threads,
+     * rows of the same partition are handled by one thread in key range order of a database.
+     * @param handler The row handler
+     * @return The number of rows
+     * @throws SQLException When cannot read a partition or a handler fail, other partitions are cancelled
+     */
+    public long read(PartitionHandler handler) throws SQLException {
+        List<Partition> plan = plan();
+        if (plan.isEmpty()) {
+            return 0L;
+        }
+
+        String sql = selectSql(false);
+        String lastSql = selectSql(true);
+        ExecutorService service = executor;
+        boolean shutdown = false;
+        if (service == null) {
+            service = Executors.newFixedThreadPool(plan.size(), daemonThreadFactory());
+            shutdown = true;
+        }
+
+        CompletionService<Long> completion = new ExecutorCompletionService<>(service);
+        List<Future<Long>> futures = new ArrayList<>(plan.size());
+        try {
+            for (Partition partition : plan) {
+                String partitionSql = (partition.isLast() ? lastSql : sql);
+                futures.add(completion.submit(() -> readPartition(partition, partitionSql, handler)));
+            }
+
+            long rows = 0L;
+            for (int i = 0; i < futures.size(); i++) {
+                rows += completion.take().get();
+            }
+            return rows;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Read of table " + table + " is interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Cannot read table " + table, cause);
+        } finally {
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+            if (shutdown) {
+                service.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Read all partitions concurrently into a bounded queue, a reading is started in a background thread.
+     * The iterator must be closed, closing an iterator before the end cancel a read.
+     * @param queueCapacity The maximum number of rows waiting in a queue
+     * @return The row iterator
+     */
+    public RowIterator iterator(int queueCapacity) {
+        RowIterator iterator = new RowIterator(queueCapacity);
+        Thread thread = daemonThreadFactory().newThread(iterator::produce);
+        iterator.producer = thread;
+        thread.start();
+        return iterator;
+    }
+
+    static List<Partition> split(long min, long max, int partitions) {
+        BigInteger lower = BigInteger.valueOf(min);
+        BigInteger span = BigInteger.valueOf(max).subtract(lower).add(BigInteger.ONE);
+        int count = (int) Math.min(partitions, span.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+        BigInteger divisor = BigInteger.valueOf(count);
+
+        List<Partition> result = new ArrayList<>(count);
+        long start = min;
+        for (int i = 0; i < count; i++) {
+            boolean last = (i == count - 1);
+            long end = last ? max : lower.add(span.multiply(BigInteger.valueOf(i + 1L)).divide(divisor)).longValue();
+            result.add(new Partition(i, start, end, last));
+            start = end;
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private long readPartition(Partition partition, String sql, PartitionHandler handler) throws Exception {
+        long rows = 0L;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, partition.getLower());
+            ps.setLong(2, partition.getUpper());
+            try (ResultSet rs = ps.executeQuery()) {
+                RowReader reader = RowReader.of(rs.getMetaData());
+                int index = partition.getIndex();
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("Partition " + index + " is cancelled");
+                    }
+                    handler.handle(index, reader.read(rs));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private String selectSql(boolean last) {
+        StringBuilder sb = new StringBuilder(64 + columns.size() * 16);
+        sb.append("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(columns.get(i));
+        }
+        sb.append(" FROM ").append(table)
+                .append(" WHERE ").append(keyColumn).append(" >= ? AND ")
+                .append(keyColumn).append(last ? " <= ?" : " < ?");
+        return sb.toString();
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        return r -> {
+            Thread thread = new Thread(r, "partitioned-reader-" + THREAD_SEQ.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Handle a row of a partition
+     */
+    @FunctionalInterface
+    public interface PartitionHandler {
+        void handle(int partition, Object[] row) throws Exception;
+    }
+
+    /**
+     * Key range of a partition, lower is inclusive and upper is exclusive (inclusive for the last partition)
+     */
+    public static final class Partition {
+        private final int index;
+        private final long lower;
+        private final long upper;
+        private final boolean last;
+
+        private Partition(int index, long lower, long upper, boolean last) {
+            this.index = index;
+            this.lower = lower;
+            this.upper = upper;
+            this.last = last;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getLower() {
+            return lower;
+        }
+
+        public long getUpper() {
+            return upper;
+        }
+
+        public boolean isLast() {
+            return last;
+        }
+
+        @Override
+        public String toString() {
+            return "Partition{" + index + ": [" + lower + ", " + upper + (last ? "]}" : ")}");
+        }
+    }
+
+    /**
+     * Iterator over rows of all partitions, SQLException of a read is thrown as RuntimeException
+     */
+    public final class RowIterator implements Iterator<Object[]>, AutoCloseable {
+        private final BlockingQueue<Object[]> queue;
+        private volatile Throwable error;
+        private volatile boolean closed;
+        private Thread producer;
+        private Object[] nextRow;
+        private long rowCount;
+
+        private RowIterator(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        }
+
+        private void produce() {
+            try {
+                read((partition, row) -> queue.put(row));
+            } catch (Throwable ex) {
+                if (!closed) {
+                    error = ex;
+                }
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow != null) {
+                return true;
+            }
+            if (closed) {
+                return false;
+            }
+
+            Object[] row;
+            try {
+                row = queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                close();
+                throw Exceptions.toRuntimeException(ex);
+            }
+
+            if (row == END) {
+                closed = true;
+                if (error != null) {
+                    throw Exceptions.toRuntimeException(error);
+                }
+                return false;
+            }
+            nextRow = row;
+            return true;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Object[] row = nextRow;
+            nextRow = null;
+            rowCount++;
+            return row;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                producer.interrupt();
+                queue.clear();
+            }
+            nextRow = null;
+        }
+    }
+}
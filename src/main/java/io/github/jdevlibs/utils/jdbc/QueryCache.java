@@ -0,0 +1,361 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.cache.BoundedCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of query results keyed by JDBC URL, SQL and parameter values, for reference data
+ * (e.g. lookup tables, codes) which are read many times and rarely changed.
+ * <pre>
+ * QueryCache cache = new QueryCache(1000, 10, TimeUnit.MINUTES);
+ * CachedResult codes = cache.query(conn, "SELECT CODE, NAME FROM M_CODE WHERE TYPE = ?", "GENDER");
+ *
+ * cache.update(conn, "UPDATE M_CODE SET NAME = ? WHERE CODE = ?", "Male", "M"); // invalidate M_CODE
+ * </pre>
+ * Each entry keep names of the tables it read (from FROM/JOIN of SQL or given by a caller),
+ * {@link #update} and {@link #invalidate(String)} remove entries which depend on a table.
+ * Tables are matched by name without schema (case-insensitive). A change made by other applications
+ * is visible after TTL only.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class QueryCache {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    public static final long DEFAULT_TTL_MINUTES = 10L;
+
+    private static final Set<String> TABLE_KEYWORDS = new LinkedHashSet<>(Arrays.asList(
+            "FROM", "JOIN", "UPDATE", "INTO"));
+    private static final Set<String> END_KEYWORDS = new LinkedHashSet<>(Arrays.asList(
+            "WHERE", "GROUP", "ORDER", "HAVING", "UNION", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS",
+            "ON", "SET", "VALUES", "SELECT", "LIMIT", "FETCH", "OFFSET", "USING", "WITH", "FOR", "MINUS",
+            "EXCEPT", "INTERSECT", "WINDOW", "OUTER", "NATURAL"));
+
+    private final BoundedCache<QueryKey, CachedResult> results;
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    /** Incremented by {@link #invalidateAll()}, a part of every version */
+    private final AtomicLong generation = new AtomicLong();
+
+    public QueryCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Create query cache
+     * @param maxSize The maximum number of cached results
+     * @param ttl The time to live of a result, 0 is no expiration
+     * @param unit The unit of ttl
+     */
+    public QueryCache(int maxSize, long ttl, TimeUnit unit) {
+        this.results = new BoundedCache<>(maxSize, ttl, unit);
+    }
+
+    /**
+     * Read cached result or execute a query, tables are read from FROM/JOIN of SQL
+     * @param conn The connection
+     * @param sql The query
+     * @param params The parameter values (must have value equality, e.g. String, Number, Date)
+     * @return The result
+     * @throws SQLException When cannot execute a query
+     */
+    public CachedResult query(Connection conn, String sql, Object... params) throws SQLException {
+        return query(conn, tableNames(sql), sql, params);
+    }
+
+    /**
+     * Read cached result or execute a query
+     * @param conn The connection
+     * @param tables The tables which a query depend on
+     * @param sql The query
+     * @param params The parameter values
+     * @return The result
+     * @throws SQLException When cannot execute a query
+     */
+    public CachedResult query(Connection conn, Collection<String> tables, String sql, Object... params)
+            throws SQLException {
+        QueryKey key = new QueryKey(conn.getMetaData().getURL(), sql, params);
+        CachedResult result = results.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        String[] names = normalize(tables);
+        long version = version(names);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                result = CachedResult.of(rs);
+            }
+        }
+
+        // a table changed while reading, the result may be stale so it is not cached
+        if (version == version(names)) {
+            results.put(key.withTables(names), result);
+            // an invalidate between a check and a put may not see this entry, check again after the put
+            if (version != version(names)) {
+                results.remove(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Execute INSERT/UPDATE/DELETE/MERGE and invalidate results of a target table.
+     * In a transaction call {@link #invalidate(String)} again after commit,
+     * other threads may read and cache old values before commit.
+     * @param conn The connection
+     * @param sql The statement
+     * @param params The parameter values
+     * @return The number of updated rows
+     * @throws SQLException When cannot execute a statement
+     */
+    public int update(Connection conn, String sql, Object... params) throws SQLException {
+        Set<String> tables = tableNames(sql);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, params);
+            return ps.executeUpdate();
+        } finally {
+            for (String table : tables) {
+                invalidate(table);
+            }
+        }
+    }
+
+    /**
+     * Remove results which depend on a table
+     * @param table The table name
+     * @return The number of removed results
+     */
+    public int invalidate(String table) {
+        String name = normalize(table);
+        versions.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+        return results.removeIf(key -> key.dependsOn(name));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        results.clear();
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public long getHitCount() {
+        return results.getHitCount();
+    }
+
+    public long getMissCount() {
+        return results.getMissCount();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache" + results;
+    }
+
+    /**
+     * Read names of tables after FROM, JOIN, UPDATE and INTO keywords
+     * @param sql The SQL
+     * @return The table names (upper case, without schema)
+     */
+    static Set<String> tableNames(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        int length = sql.length();
+        int i = 0;
+        boolean expectTable = false;
+        boolean tableList = false;
+        boolean afterTable = false;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (ch == '\'') {
+                i = skipQuoted(sql, i + 1, '\'');
+                expectTable = false;
+            } else if (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = (end < 0 ? length : end + 1);
+            } else if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = (end < 0 ? length : end + 2);
+            } else if (ch == ',') {
+                expectTable = tableList;
+                afterTable = false;
+                i++;
+            } else if (isNameChar(ch) || ch == '"' || ch == '`' || ch == '[') {
+                int start = i;
+                i = skipName(sql, i);
+                String word = sql.substring(start, i);
+                String upper = word.toUpperCase(Locale.US);
+                if (expectTable) {
+                    tables.add(normalize(word));
+                    expectTable = false;
+                    afterTable = true;
+                } else if (TABLE_KEYWORDS.contains(upper)) {
+                    expectTable = true;
+                    tableList = "FROM".equals(upper);
+                    afterTable = false;
+                } else if (afterTable && END_KEYWORDS.contains(upper)) {
+                    tableList = false;
+                    afterTable = false;
+                }
+            } else {
+                // e.g. ( of a subquery, a table is not expected
+                expectTable = false;
+                if (ch == '(' || ch == ')') {
+                    tableList = false;
+                }
+                i++;
+            }
+        }
+        return tables;
+    }
+
+    private static int skipName(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            char ch = sql.charAt(i);
+            if (ch == '"' || ch == '`') {
+                i = skipQuoted(sql, i + 1, ch);
+            } else if (ch == '[') {
+                int end = sql.indexOf(']', i + 1);
+                i = (end < 0 ? sql.length() : end + 1);
+            } else if (isNameChar(ch) || ch == '.') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int skipQuoted(String sql, int from, char quote) {
+        int end = sql.indexOf(quote, from);
+        return (end < 0 ? sql.length() : end + 1);
+    }
+
+    private static boolean isNameChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '#';
+    }
+
+    private static String normalize(String table) {
+        String name = table.trim();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        if (name.length() > 1 && (name.charAt(0) == '"' || name.charAt(0) == '`' || name.charAt(0) == '[')) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.toUpperCase(Locale.US);
+    }
+
+    private static String[] normalize(Collection<String> tables) {
+        String[] names = new String[tables.size()];
+        int i = 0;
+        for (String table : tables) {
+            names[i++] = normalize(table);
+        }
+        return names;
+    }
+
+    private long version(String[] tables) {
+        long version = generation.get();
+        for (String table : tables) {
+            AtomicLong value = versions.get(table);
+            if (value != null) {
+                version += value.get();
+            }
+        }
+        return version;
+    }
+
+    private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            SqlBinder.bindObject(ps, i + 1, params[i]);
+        }
+    }
+
+    private static final class QueryKey {
+        private final String url;
+        private final String sql;
+        private final Object[] params;
+        private final String[] tables;
+        private final int hash;
+
+        private QueryKey(String url, String sql, Object[] params) {
+            this((url == null ? "" : url), sql, (params == null ? new Object[0] : params.clone()), new String[0]);
+        }
+
+        private QueryKey(String url, String sql, Object[] params, String[] tables) {
+            this.url = url;
+            this.sql = sql;
+            this.params = params;
+            this.tables = tables;
+            this.hash = 31 * (31 * url.hashCode() + sql.hashCode()) + Arrays.deepHashCode(params);
+        }
+
+        private QueryKey withTables(String[] names) {
+            return new QueryKey(url, sql, params, names);
+        }
+
+        private boolean dependsOn(String table) {
+            for (String name : tables) {
+                if (name.equals(table)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey other = (QueryKey) obj;
+            return hash == other.hash && sql.equals(other.sql) && url.equals(other.url)
+                    && Arrays.deepEquals(params, other.params);
+        }
+    }
+}
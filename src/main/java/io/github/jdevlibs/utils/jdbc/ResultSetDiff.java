@@ -0,0 +1,606 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare two ResultSets ordered by key columns with a merge join, rows are read once and are not kept in memory.
+ * <pre>
+ * ResultSetDiff diff = ResultSetDiff.of(sourceConn, "EMPLOYEE"); // key is a primary key
+ * ResultSetDiff.Result result = diff.compareTables(sourceConn, targetConn, "EMPLOYEE", d -&gt; log.info(d.toString()));
+ * </pre>
+ * A row only in a source is {@link Type#INSERT} (a target need insert), a row only in a target is {@link Type#DELETE},
+ * a row in both with different values is {@link Type#UPDATE}.
+ * Columns of a source which exist in a target (label, case-insensitive) are compared, other columns are ignored.
+ * A row is compared by a 64-bit FNV-1a hash of normalized values, numbers compare by value (1 = 1.00 = 1.0d),
+ * Boolean compare as 1/0 and dates compare by epoch millis, so a source and a target can be different databases.
+ * <p>
+ * Both ResultSets must be ordered by keys in the same order as Java compare values, a character key need
+ * a binary collation (e.g. COLLATE "C", NLS_SORT=BINARY). Rows out of order fail with SQLException.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class ResultSetDiff {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String[] keys;
+    private int fetchSize = JdbcStreams.DEFAULT_FETCH_SIZE;
+
+    private ResultSetDiff(String[] keys) {
+        if (keys == null || keys.length == 0) {
+            throw new IllegalArgumentException("Key columns is required");
+        }
+        this.keys = keys.clone();
+    }
+
+    /**
+     * Create diff of key columns
+     * @param keyColumns The key columns, unique and not null together
+     * @return The diff
+     */
+    public static ResultSetDiff of(String... keyColumns) {
+        return new ResultSetDiff(keyColumns);
+    }
+
+    /**
+     * Create diff of a table primary key, keys are in KEY_SEQ order (an order of a primary key index)
+     * @param conn The connection
+     * @param table The table name
+     * @return The diff
+     * @throws SQLException When a table has no primary key
+     */
+    public static ResultSetDiff of(Connection conn, String table) throws SQLException {
+        Map<String, String> primaryKey = JdbcMetadataCache.getDefault()
+                .getPrimaryKeyInOrder(conn.getMetaData(), table);
+        if (primaryKey.isEmpty()) {
+            throw new SQLException("Table " + table + " has no primary key");
+        }
+        return new ResultSetDiff(primaryKey.keySet().toArray(new String[0]));
+    }
+
+    public ResultSetDiff fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Get query of a table ordered by keys
+     * @param table The table name
+     * @return The SQL
+     */
+    public String getSql(String table) {
+        return "SELECT * FROM " + table + " ORDER BY " + String.join(", ", keys);
+    }
+
+    /**
+     * Compare a table of two connections
+     * @param source The source connection
+     * @param target The target connection
+     * @param table The table name (same name in both)
+     * @param listener The listener of differences, can be null
+     * @return The result
+     * @throws SQLException When cannot read a table or rows are not ordered
+     */
+    public Result compareTables(Connection source, Connection target, String table, DiffListener listener)
+            throws SQLException {
+        String sql = getSql(table);
+        try (PreparedStatement sourcePs = source.prepareStatement(sql);
+             PreparedStatement targetPs = target.prepareStatement(sql)) {
+            sourcePs.setFetchSize(fetchSize);
+            targetPs.setFetchSize(fetchSize);
+            try (ResultSet sourceRs = sourcePs.executeQuery(); ResultSet targetRs = targetPs.executeQuery()) {
+                return compare(sourceRs, targetRs, listener);
+            }
+        }
+    }
+
+    /**
+     * Compare remaining rows of two ResultSets, ResultSets are not closed
+     * @param source The source rows ordered by keys
+     * @param target The target rows ordered by keys
+     * @param listener The listener of differences, can be null
+     * @return The result
+     * @throws SQLException When cannot read ResultSet, a key is null or rows are not ordered
+     */
+    public Result compare(ResultSet source, ResultSet target, DiffListener listener) throws SQLException {
+        RowReader sourceReader = RowReader.of(source.getMetaData());
+        RowReader targetReader = RowReader.of(target.getMetaData());
+
+        // compared columns: keys then other source columns which exist in a target, a duplicate label is skipped
+        List<String> names = new ArrayList<>();
+        List<Integer> sourceIndexes = new ArrayList<>();
+        List<Integer> targetIndexes = new ArrayList<>();
+        for (String key : keys) {
+            int sourceIndex = sourceReader.indexOf(key);
+            int targetIndex = targetReader.indexOf(key);
+            if (sourceIndex < 0 || targetIndex < 0) {
+                throw new SQLException("Key column " + key + " not found");
+            }
+            names.add(sourceReader.getColumn(sourceIndex));
+            sourceIndexes.add(sourceIndex);
+            targetIndexes.add(targetIndex);
+        }
+        for (int i = 0; i < sourceReader.getColumnCount(); i++) {
+            String name = sourceReader.getColumn(i);
+            int targetIndex = targetReader.indexOf(name);
+            if (targetIndex >= 0 && !sourceIndexes.contains(i) && !names.contains(name)) {
+                names.add(name);
+                sourceIndexes.add(i);
+                targetIndexes.add(targetIndex);
+            }
+        }
+
+        RowMap.Columns columns = RowMap.Columns.of(source, names);
+        Side sourceSide = new Side("Source", source, sourceReader, toArray(sourceIndexes), keys.length);
+        Side targetSide = new Side("Target", target, targetReader, toArray(targetIndexes), keys.length);
+        Result result = new Result(columns.getNames());
+
+        sourceSide.advance();
+        targetSide.advance();
+        while (sourceSide.hasRow || targetSide.hasRow) {
+            int cmp;
+            if (!targetSide.hasRow) {
+                cmp = -1;
+            } else if (!sourceSide.hasRow) {
+                cmp = 1;
+            } else {
+                try {
+                    cmp = compareKeys(sourceSide.values, targetSide.values, keys.length);
+                } catch (IllegalArgumentException ex) {
+                    throw new SQLException(ex.getMessage(), ex);
+                }
+            }
+
+            if (cmp < 0) {
+                result.insertCount++;
+                report(listener, new Difference(Type.INSERT, columns, keys.length, sourceSide.copy(), null, null));
+                sourceSide.advance();
+            } else if (cmp > 0) {
+                result.deleteCount++;
+                report(listener, new Difference(Type.DELETE, columns, keys.length, null, targetSide.copy(), null));
+                targetSide.advance();
+            } else {
+                if (sourceSide.hash() == targetSide.hash()) {
+                    result.unchangedCount++;
+                } else {
+                    result.updateCount++;
+                    List<String> changed = changedColumns(columns, sourceSide.values, targetSide.values);
+                    report(listener, new Difference(Type.UPDATE, columns, keys.length, sourceSide.copy(),
+                            targetSide.copy(), changed));
+                }
+                sourceSide.advance();
+                targetSide.advance();
+            }
+        }
+
+        result.sourceCount = sourceSide.count;
+        result.targetCount = targetSide.count;
+        return result;
+    }
+
+    private static void report(DiffListener listener, Difference difference) throws SQLException {
+        if (listener != null) {
+            listener.onDifference(difference);
+        }
+    }
+
+    private List<String> changedColumns(RowMap.Columns columns, Object[] source, Object[] target) {
+        List<String> changed = new ArrayList<>();
+        for (int i = keys.length; i < source.length; i++) {
+            if (hash(FNV_OFFSET, source[i]) != hash(FNV_OFFSET, target[i])) {
+                changed.add(columns.getName(i));
+            }
+        }
+        return changed;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Compare key values of two rows
+     * @param a The first row
+     * @param b The second row
+     * @param keyCount The number of key values at a start of rows
+     * @return Negative, zero or positive when a row a is less than, equal to or greater than a row b
+     */
+    static int compareKeys(Object[] a, Object[] b, int keyCount) {
+        for (int i = 0; i < keyCount; i++) {
+            int cmp = compareValue(a[i], b[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValue(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+            }
+            return toBigDecimal((Number) a).compareTo(toBigDecimal((Number) b));
+        }
+        if (a instanceof java.util.Date && b instanceof java.util.Date) {
+            int cmp = Long.compare(((java.util.Date) a).getTime(), ((java.util.Date) b).getTime());
+            return (cmp != 0 ? cmp : Integer.compare(nanos(a), nanos(b)));
+        }
+        if (a instanceof byte[] && b instanceof byte[]) {
+            return compareBytes((byte[]) a, (byte[]) b);
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        throw new IllegalArgumentException("Cannot compare key " + a.getClass().getName()
+                + " with " + b.getClass().getName());
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static BigDecimal toBigDecimal(Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (isIntegral(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return BigDecimal.valueOf(value.doubleValue());
+    }
+
+    private static int nanos(Object value) {
+        return (value instanceof Timestamp ? ((Timestamp) value).getNanos() % 1_000_000 : 0);
+    }
+
+    /**
+     * Add a normalized value to FNV-1a hash
+     * @param hash The current hash
+     * @param value The value
+     * @return The new hash
+     */
+    static long hash(long hash, Object value) {
+        if (value == null) {
+            return mix(hash, 0);
+        } else if (value instanceof String) {
+            return hashChars(mix(hash, 'S'), (String) value);
+        } else if (value instanceof Boolean) {
+            return hashLong(mix(hash, 'N'), ((Boolean) value) ? 1L : 0L);
+        } else if (value instanceof Number) {
+            return hashNumber(hash, (Number) value);
+        } else if (value instanceof java.util.Date) {
+            long h = hashLong(mix(hash, 'T'), ((java.util.Date) value).getTime());
+            return hashLong(h, nanos(value));
+        } else if (value instanceof LocalDateTime) {
+            return hash(hash, Timestamp.valueOf((LocalDateTime) value));
+        } else if (value instanceof LocalDate) {
+            return hash(hash, java.sql.Date.valueOf((LocalDate) value));
+        } else if (value instanceof byte[]) {
+            long h = mix(hash, 'X');
+            for (byte b : (byte[]) value) {
+                h = mix(h, b);
+            }
+            return h;
+        } else if (value instanceof Character) {
+            return hashChars(mix(hash, 'S'), value.toString());
+        }
+        return hashChars(mix(hash, 'O'), value.toString());
+    }
+
+    private static long hashNumber(long hash, Number value) {
+        if (isIntegral(value)) {
+            return hashLong(mix(hash, 'N'), value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return hashLong(mix(hash, 'D'), Double.doubleToLongBits(d));
+            }
+        }
+
+        BigDecimal decimal = toBigDecimal(value);
+        if (decimal.signum() == 0) {
+            return hashLong(mix(hash, 'N'), 0L);
+        }
+        decimal = decimal.stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+            return hashLong(mix(hash, 'N'), decimal.longValueExact());
+        }
+        long h = hashLong(mix(hash, 'M'), decimal.scale());
+        for (byte b : decimal.unscaledValue().toByteArray()) {
+            h = mix(h, b);
+        }
+        return h;
+    }
+
+    private static long hashChars(long hash, String value) {
+        long h = hash;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            h = mix(mix(h, ch & 0xFF), ch >>> 8);
+        }
+        // length end a value, "ab" + "c" differ from "a" + "bc"
+        return hashLong(h, value.length());
+    }
+
+    private static long hashLong(long hash, long value) {
+        long h = hash;
+        for (int i = 0; i < 64; i += 8) {
+            h = mix(h, (int) (value >>> i));
+        }
+        return h;
+    }
+
+    private static long mix(long hash, int b) {
+        return (hash ^ (b & 0xFF)) * FNV_PRIME;
+    }
+
+    /**
+     * Current row of a ResultSet
+     */
+    private static final class Side {
+        private final String name;
+        private final ResultSet rs;
+        private final RowReader reader;
+        private final int[] indexes;
+        private final int keyCount;
+        private final Object[] row;
+        private final Object[] values;
+        private Object[] previousKey;
+        private boolean hasRow;
+        private long count;
+
+        private Side(String name, ResultSet rs, RowReader reader, int[] indexes, int keyCount) {
+            this.name = name;
+            this.rs = rs;
+            this.reader = reader;
+            this.indexes = indexes;
+            this.keyCount = keyCount;
+            this.row = new Object[reader.getColumnCount()];
+            this.values = new Object[indexes.length];
+        }
+
+        private void advance() throws SQLException {
+            if (hasRow) {
+                if (previousKey == null) {
+                    previousKey = new Object[keyCount];
+                }
+                System.arraycopy(values, 0, previousKey, 0, keyCount);
+            }
+
+            hasRow = rs.next();
+            if (!hasRow) {
+                return;
+            }
+
+            reader.read(rs, row);
+            for (int i = 0; i < indexes.length; i++) {
+                values[i] = row[indexes[i]];
+            }
+            count++;
+
+            for (int i = 0; i < keyCount; i++) {
+                if (values[i] == null) {
+                    throw new SQLException(name + " row " + count + " has null key");
+                }
+            }
+            try {
+                if (previousKey != null && compareKeys(previousKey, values, keyCount) >= 0) {
+                    throw new SQLException(name + " rows are not ordered by key, row " + count
+                            + " key " + Arrays.toString(Arrays.copyOf(values, keyCount)));
+                }
+            } catch (IllegalArgumentException ex) {
+                throw new SQLException(ex.getMessage(), ex);
+            }
+        }
+
+        private long hash() {
+            long h = FNV_OFFSET;
+            for (int i = keyCount; i < values.length; i++) {
+                h = ResultSetDiff.hash(h, values[i]);
+            }
+            return h;
+        }
+
+        private Object[] copy() {
+            return values.clone();
+        }
+    }
+
+    public enum Type {
+        /** Row only in a source */
+        INSERT,
+        /** Row only in a target */
+        DELETE,
+        /** Row in both with different values */
+        UPDATE
+    }
+
+    /**
+     * Listener of differences, called in key order
+     */
+    @FunctionalInterface
+    public interface DiffListener {
+
+        void onDifference(Difference difference) throws SQLException;
+    }
+
+    /**
+     * Difference of a row
+     */
+    public static final class Difference {
+        private final Type type;
+        private final RowMap.Columns columns;
+        private final int keyCount;
+        private final Object[] source;
+        private final Object[] target;
+        private final List<String> changedColumns;
+
+        private Difference(Type type, RowMap.Columns columns, int keyCount, Object[] source, Object[] target,
+                           List<String> changedColumns) {
+            this.type = type;
+            this.columns = columns;
+            this.keyCount = keyCount;
+            this.source = source;
+            this.target = target;
+            this.changedColumns = (changedColumns == null ? Collections.emptyList()
+                    : Collections.unmodifiableList(changedColumns));
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Get key values
+         * @return The key values in order of key columns
+         */
+        public Object[] getKey() {
+            return Arrays.copyOf(source != null ? source : target, keyCount);
+        }
+
+        /**
+         * Get source row (compared columns)
+         * @return The row, null for DELETE
+         */
+        public Map<String, Object> getSource() {
+            return (source == null ? null : RowMap.of(columns, source));
+        }
+
+        /**
+         * Get target row (compared columns)
+         * @return The row, null for INSERT
+         */
+        public Map<String, Object> getTarget() {
+            return (target == null ? null : RowMap.of(columns, target));
+        }
+
+        /**
+         * Get columns which are different
+         * @return The column names of UPDATE, empty for INSERT and DELETE
+         */
+        public List<String> getChangedColumns() {
+            return changedColumns;
+        }
+
+        @Override
+        public String toString() {
+            return "Difference{type=" + type + ", key=" + Arrays.toString(getKey())
+                    + (changedColumns.isEmpty() ? "" : ", changed=" + changedColumns) + "}";
+        }
+    }
+
+    /**
+     * Counts of a diff
+     */
+    public static final class Result {
+        private final List<String> columns;
+        private long sourceCount;
+        private long targetCount;
+        private long insertCount;
+        private long deleteCount;
+        private long updateCount;
+        private long unchangedCount;
+
+        private Result(List<String> columns) {
+            this.columns = columns;
+        }
+
+        /**
+         * Get compared columns, keys are first
+         * @return The column names
+         */
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public long getSourceCount() {
+            return sourceCount;
+        }
+
+        public long getTargetCount() {
+            return targetCount;
+        }
+
+        public long getInsertCount() {
+            return insertCount;
+        }
+
+        public long getDeleteCount() {
+            return deleteCount;
+        }
+
+        public long getUpdateCount() {
+            return updateCount;
+        }
+
+        public long getUnchangedCount() {
+            return unchangedCount;
+        }
+
+        /**
+         * Check both ResultSets have same rows
+         * @return true when no difference
+         */
+        public boolean isEqual() {
+            return insertCount == 0L && deleteCount == 0L && updateCount == 0L;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{source=" + sourceCount + ", target=" + targetCount + ", insert=" + insertCount
+                    + ", delete=" + deleteCount + ", update=" + updateCount + ", unchanged=" + unchangedCount + "}";
+        }
+    }
+}
@@ -0,0 +1,601 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnInfo;
+import io.github.jdevlibs.utils.fotmat.DateFormatters;
+import io.github.jdevlibs.utils.fotmat.FixedDateCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Export a ResultSet to CSV or JSON Lines. Each column get a formatter from {@link JdbcUtils#getColumInfo}
+ * before a first row, cells are read by column index and written to an internal buffer,
+ * the output is flushed every {@link #flushRows(int)} rows. CLOB and BLOB (Base64) are streamed.
+ * <pre>
+ * try (Writer writer = Files.newBufferedWriter(path)) {
+ *     long rows = ResultSetExporter.csv().export(rs, writer);
+ * }
+ * </pre>
+ * Dates are formatted with dd/MM/yyyy HH:mm:ss and times with HH:mm:ss, the same as
+ * {@link JdbcUtils#getResultValue(ResultSet, String, int)}.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class ResultSetExporter {
+    public static final int DEFAULT_FLUSH_ROWS = 1000;
+
+    private static final int BUFFER_SIZE = 16384;
+    private static final String FM_TIME = "HH:mm:ss";
+    private static final String FM_DATE_TIME = "dd/MM/yyyy HH:mm:ss";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Format format;
+    private char delimiter = ',';
+    private boolean header = true;
+    private String lineSeparator = "\n";
+    private int flushRows = DEFAULT_FLUSH_ROWS;
+    private DateTimeFormatter dateTimeFormatter = DateFormatters.get(FM_DATE_TIME, Locale.US);
+    private DateTimeFormatter timeFormatter = DateFormatters.get(FM_TIME, Locale.US);
+    private boolean fixedDateTime = true;
+    private boolean fixedTime = true;
+
+    public ResultSetExporter(Format format) {
+        this.format = format;
+    }
+
+    public static ResultSetExporter csv() {
+        return new ResultSetExporter(Format.CSV);
+    }
+
+    public static ResultSetExporter jsonLines() {
+        return new ResultSetExporter(Format.JSON_LINES);
+    }
+
+    /**
+     * CSV field delimiter, default is comma
+     * @param delimiter The delimiter
+     * @return This exporter
+     */
+    public ResultSetExporter delimiter(char delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Write CSV header line, default is true
+     * @param header true write header
+     * @return This exporter
+     */
+    public ResultSetExporter header(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    public ResultSetExporter lineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator;
+        return this;
+    }
+
+    /**
+     * Flush output every a number of rows, default is 1000
+     * @param flushRows The number of rows
+     * @return This exporter
+     */
+    public ResultSetExporter flushRows(int flushRows) {
+        this.flushRows = Math.max(flushRows, 1);
+        return this;
+    }
+
+    public ResultSetExporter dateTimePattern(String pattern) {
+        this.dateTimeFormatter = DateFormatters.get(pattern, Locale.US);
+        this.fixedDateTime = FixedDateCodec.DATE_TIME.equals(pattern);
+        return this;
+    }
+
+    public ResultSetExporter timePattern(String pattern) {
+        this.timeFormatter = DateFormatters.get(pattern, Locale.US);
+        this.fixedTime = FixedDateCodec.TIME.equals(pattern);
+        return this;
+    }
+
+    /**
+     * Export all remaining rows of ResultSet to UTF-8 output stream, the output stream is not closed
+     * @param rs JDBC ResultSet
+     * @param output The output stream
+     * @return Number of exported rows
+     * @throws SQLException When cannot read ResultSet
+     * @throws IOException When cannot write output
+     */
+    public long export(ResultSet rs, OutputStream output) throws SQLException, IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        long rows = export(rs, writer);
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * Export all remaining rows of ResultSet to a writer, the writer is not closed
+     * @param rs JDBC ResultSet
+     * @param writer The writer
+     * @return Number of exported rows
+     * @throws SQLException When cannot read ResultSet
+     * @throws IOException When cannot write output
+     */
+    public long export(ResultSet rs, Writer writer) throws SQLException, IOException {
+        List<ColumnInfo> columns = JdbcUtils.getColumInfo(rs.getMetaData());
+        CellWriter[] cells = new CellWriter[columns.size()];
+        String[] names = new String[columns.size()];
+        for (int i = 0; i < cells.length; i++) {
+            ColumnInfo column = columns.get(i);
+            cells[i] = cellWriter(column.getType());
+            names[i] = column.getColumn();
+        }
+
+        String[] jsonKeys = new String[names.length];
+        if (format == Format.JSON_LINES) {
+            for (int i = 0; i < names.length; i++) {
+                StringWriter key = new StringWriter();
+                CharOutput keyOut = new CharOutput(key);
+                writeJsonString(keyOut, names[i]);
+                keyOut.write(':');
+                keyOut.flush();
+                jsonKeys[i] = key.toString();
+            }
+        }
+
+        CharOutput out = new CharOutput(writer);
+        if (format == Format.CSV && header) {
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    out.write(delimiter);
+                }
+                writeCsv(out, names[i]);
+            }
+            out.write(lineSeparator);
+        }
+
+        long rows = 0L;
+        while (rs.next()) {
+            if (format == Format.CSV) {
+                for (int i = 0; i < cells.length; i++) {
+                    if (i > 0) {
+                        out.write(delimiter);
+                    }
+                    cells[i].write(rs, i + 1, out);
+                }
+            } else {
+                out.write('{');
+                for (int i = 0; i < cells.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write(jsonKeys[i]);
+                    cells[i].write(rs, i + 1, out);
+                }
+                out.write('}');
+            }
+            out.write(lineSeparator);
+
+            if (++rows % flushRows == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+    private CellWriter cellWriter(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return (rs, index, out) -> writeNumber(out, rs.getObject(index));
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return (rs, index, out) -> {
+                    boolean value = rs.getBoolean(index);
+                    if (rs.wasNull()) {
+                        writeNull(out);
+                    } else {
+                        out.write(value ? "true" : "false");
+                    }
+                };
+            case Types.DATE:
+                return (rs, index, out) -> {
+                    java.sql.Date date = rs.getDate(index);
+                    writeDateTime(out, date == null ? null : date.toLocalDate().atStartOfDay());
+                };
+            case Types.TIMESTAMP:
+                return (rs, index, out) -> {
+                    Timestamp timestamp = rs.getTimestamp(index);
+                    writeDateTime(out, timestamp == null ? null : timestamp.toLocalDateTime());
+                };
+            case Types.TIME:
+                return (rs, index, out) -> {
+                    Time time = rs.getTime(index);
+                    writeTime(out, time == null ? null : time.toLocalTime());
+                };
+            case Types.CLOB:
+            case Types.NCLOB:
+                return (rs, index, out) -> writeClob(out, rs.getClob(index));
+            case Types.BLOB:
+                return (rs, index, out) -> writeBlob(out, rs.getBlob(index));
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return (rs, index, out) -> {
+                    byte[] bytes = rs.getBytes(index);
+                    writeRaw(out, bytes == null ? null : JdbcUtils.readBlob(bytes));
+                };
+            default:
+                return (rs, index, out) -> {
+                    Object value = rs.getObject(index);
+                    writeText(out, value == null ? null : value.toString());
+                };
+        }
+    }
+
+    private void writeNumber(CharOutput out, Object value) throws IOException {
+        if (value == null) {
+            writeNull(out);
+            return;
+        }
+
+        String text = value.toString();
+        if (format == Format.JSON_LINES && (value instanceof Double || value instanceof Float)) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                writeText(out, text);
+                return;
+            }
+        }
+        out.write(text);
+    }
+
+    /**
+     * Write dd/MM/yyyy HH:mm:ss directly when it is a pattern, otherwise use a formatter
+     */
+    private void writeDateTime(CharOutput out, LocalDateTime value) throws IOException {
+        if (value != null && fixedDateTime) {
+            char[] buffer = out.scratch();
+            int length = FixedDateCodec.formatDateTime(value, buffer, 0);
+            if (length > 0) {
+                writeFixed(out, buffer, length);
+                return;
+            }
+        }
+        writeTemporal(out, value, dateTimeFormatter);
+    }
+
+    private void writeTime(CharOutput out, LocalTime value) throws IOException {
+        if (value != null && fixedTime) {
+            char[] buffer = out.scratch();
+            writeFixed(out, buffer, FixedDateCodec.formatTime(value, buffer, 0));
+            return;
+        }
+        writeTemporal(out, value, timeFormatter);
+    }
+
+    private void writeFixed(CharOutput out, char[] buffer, int length) throws IOException {
+        if (format == Format.JSON_LINES) {
+            out.write('"');
+            out.write(buffer, 0, length);
+            out.write('"');
+        } else {
+            out.write(buffer, 0, length);
+        }
+    }
+
+    private void writeTemporal(CharOutput out, java.time.temporal.TemporalAccessor value,
+                               DateTimeFormatter formatter) throws IOException {
+        if (value == null) {
+            writeNull(out);
+            return;
+        }
+
+        if (format == Format.JSON_LINES) {
+            out.write('"');
+            formatter.formatTo(value, out);
+            out.write('"');
+        } else {
+            formatter.formatTo(value, out);
+        }
+    }
+
+    /**
+     * Write a value which never need escaping (e.g. Base64)
+     */
+    private void writeRaw(CharOutput out, String value) throws IOException {
+        if (value == null) {
+            writeNull(out);
+        } else if (format == Format.JSON_LINES) {
+            out.write('"');
+            out.write(value);
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+    }
+
+    private void writeNull(CharOutput out) throws IOException {
+        if (format == Format.JSON_LINES) {
+            out.write("null");
+        }
+    }
+
+    private void writeText(CharOutput out, String value) throws IOException {
+        if (value == null) {
+            writeNull(out);
+        } else if (format == Format.JSON_LINES) {
+            writeJsonString(out, value);
+        } else {
+            writeCsv(out, value);
+        }
+    }
+
+    private void writeClob(CharOutput out, Clob clob) throws SQLException, IOException {
+        if (clob == null) {
+            writeNull(out);
+            return;
+        }
+
+        out.write('"');
+        char[] buffer = out.scratch();
+        try (Reader reader = clob.getCharacterStream()) {
+            int n;
+            while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    if (format == Format.JSON_LINES) {
+                        writeJsonChar(out, buffer[i]);
+                    } else {
+                        writeCsvChar(out, buffer[i]);
+                    }
+                }
+            }
+        } finally {
+            JdbcUtils.freeQuietly(clob);
+        }
+        out.write('"');
+    }
+
+    private void writeBlob(CharOutput out, Blob blob) throws SQLException, IOException {
+        if (blob == null) {
+            writeNull(out);
+            return;
+        }
+
+        if (format == Format.JSON_LINES) {
+            out.write('"');
+        }
+        JdbcUtils.writeBlobBase64(blob, out, out.binaryScratch(), out.base64Scratch());
+        if (format == Format.JSON_LINES) {
+            out.write('"');
+        }
+    }
+
+    private void writeCsv(CharOutput out, CharSequence value) throws IOException {
+        if (!needQuote(value)) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0, size = value.length(); i < size; i++) {
+            writeCsvChar(out, value.charAt(i));
+        }
+        out.write('"');
+    }
+
+    private static void writeCsvChar(CharOutput out, char ch) throws IOException {
+        if (ch == '"') {
+            out.write('"');
+        }
+        out.write(ch);
+    }
+
+    private boolean needQuote(CharSequence value) {
+        for (int i = 0, size = value.length(); i < size; i++) {
+            char ch = value.charAt(i);
+            if (ch == delimiter || ch == '"' || ch == '\n' || ch == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeJsonString(CharOutput out, CharSequence value) throws IOException {
+        out.write('"');
+        for (int i = 0, size = value.length(); i < size; i++) {
+            writeJsonChar(out, value.charAt(i));
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonChar(CharOutput out, char ch) throws IOException {
+        switch (ch) {
+            case '"':
+                out.write('\\');
+                out.write('"');
+                break;
+            case '\\':
+                out.write('\\');
+                out.write('\\');
+                break;
+            case '\n':
+                out.write('\\');
+                out.write('n');
+                break;
+            case '\r':
+                out.write('\\');
+                out.write('r');
+                break;
+            case '\t':
+                out.write('\\');
+                out.write('t');
+                break;
+            default:
+                if (ch < 0x20) {
+                    out.write("\\u00");
+                    out.write(HEX[ch >> 4]);
+                    out.write(HEX[ch & 0xF]);
+                } else {
+                    out.write(ch);
+                }
+        }
+    }
+
+    /**
+     * Export format
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    @FunctionalInterface
+    private interface CellWriter {
+        void write(ResultSet rs, int index, CharOutput out) throws SQLException, IOException;
+    }
+
+    /**
+     * Unsynchronized character buffer in front of a target writer
+     */
+    private static final class CharOutput extends Writer {
+        private final Writer target;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private char[] scratch;
+        private byte[] binaryScratch;
+        private char[] base64Scratch;
+
+        private CharOutput(Writer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int ch) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (char) ch;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (length > buffer.length - position) {
+                drain();
+                if (length > buffer.length) {
+                    target.write(chars, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(chars, offset, buffer, position, length);
+            position += length;
+        }
+
+        @Override
+        public void write(String value) throws IOException {
+            write((CharSequence) value);
+        }
+
+        public void write(CharSequence value) throws IOException {
+            for (int i = 0, size = value.length(); i < size; i++) {
+                if (position == buffer.length) {
+                    drain();
+                }
+                buffer[position++] = value.charAt(i);
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence value) throws IOException {
+            write(value == null ? "null" : value);
+            return this;
+        }
+
+        @Override
+        public Writer append(char ch) throws IOException {
+            write(ch);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        private void drain() throws IOException {
+            if (position > 0) {
+                target.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+
+        private char[] scratch() {
+            if (scratch == null) {
+                scratch = new char[4096];
+            }
+            return scratch;
+        }
+
+        private byte[] binaryScratch() {
+            if (binaryScratch == null) {
+                binaryScratch = new byte[6144];
+            }
+            return binaryScratch;
+        }
+
+        private char[] base64Scratch() {
+            if (base64Scratch == null) {
+                base64Scratch = new char[6144 / 3 * 4 + 4];
+            }
+            return base64Scratch;
+        }
+    }
+}
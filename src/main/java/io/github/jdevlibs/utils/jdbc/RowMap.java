@@ -0,0 +1,363 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map view of a row. Column names and positions are kept once in {@link Columns} and shared by all rows,
+ * a row keep only an Object[] of values.
+ * <pre>
+ * List&lt;Map&lt;String, Object&gt;&gt; rows = RowMap.readAll(rs);
+ * Object name = rows.get(0).get("NAME");
+ * </pre>
+ * Keys are case-sensitive like HashMap. A value of an existing key can be replaced in place,
+ * adding or removing a key copy a row to a private LinkedHashMap (the row is not compact anymore).
+ * A row is serialized as a LinkedHashMap.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class RowMap extends AbstractMap<String, Object> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Columns columns;
+    private final Object[] values;
+    private Map<String, Object> detached;
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    private RowMap(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Create a row with values ordered by columns
+     * @param columns The shared columns
+     * @param values The values (not copied)
+     * @return The row
+     */
+    public static RowMap of(Columns columns, Object[] values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, actual " + values.length);
+        }
+        return new RowMap(columns, values);
+    }
+
+    /**
+     * Read current row of ResultSet
+     * @param rs JDBC ResultSet
+     * @param columns The shared columns of ResultSet
+     * @return The row
+     * @throws SQLException When cannot read a value
+     */
+    public static RowMap read(ResultSet rs, Columns columns) throws SQLException {
+        int[] positions = columns.positions;
+        Object[] values = new Object[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = rs.getObject(positions[i]);
+        }
+        return new RowMap(columns, values);
+    }
+
+    /**
+     * Read all remaining rows of ResultSet
+     * @param rs JDBC ResultSet
+     * @return The rows
+     * @throws SQLException When cannot read ResultSet
+     */
+    public static List<Map<String, Object>> readAll(ResultSet rs) throws SQLException {
+        Columns columns = Columns.of(rs.getMetaData());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(read(rs, columns));
+        }
+        return rows;
+    }
+
+    public Columns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get value by column position
+     * @param index The column position (first column is 0)
+     * @return The value
+     */
+    public Object get(int index) {
+        if (detached != null) {
+            return detached.get(columns.names[index]);
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return (detached != null ? detached.size() : values.length);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (detached != null) {
+            return detached.containsKey(key);
+        }
+        return columns.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (detached != null) {
+            return detached.get(key);
+        }
+        int index = columns.indexOf(key);
+        return (index < 0 ? null : values[index]);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (detached == null) {
+            int index = columns.indexOf(key);
+            if (index >= 0) {
+                Object old = values[index];
+                values[index] = value;
+                return old;
+            }
+            detach();
+        }
+        return detached.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (detached == null) {
+            if (columns.indexOf(key) < 0) {
+                return null;
+            }
+            detach();
+        }
+        return detached.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        if (detached == null) {
+            detached = new LinkedHashMap<>();
+        } else {
+            detached.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (detached != null) {
+            return detached.entrySet();
+        }
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    private void detach() {
+        Map<String, Object> map = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            map.put(columns.names[i], values[i]);
+        }
+        detached = map;
+        entrySet = null;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            if (detached != null) {
+                return detached.entrySet().iterator();
+            }
+
+            return new Iterator<Map.Entry<String, Object>>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < values.length;
+                }
+
+                @Override
+                public Map.Entry<String, Object> next() {
+                    if (index >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return new Entry(index++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return RowMap.this.size();
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Object> {
+        private final int index;
+
+        private Entry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return columns.names[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return values[index];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[index];
+            values[index] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            Object value = values[index];
+            return getKey().equals(other.getKey())
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = values[index];
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + values[index];
+        }
+    }
+
+    /**
+     * Immutable column names and ResultSet positions shared by rows.
+     * Names are unique, a duplicate name keep a first column only (same as ResultSet.findColumn).
+     */
+    public static final class Columns {
+        private final String[] names;
+        private final int[] positions;
+        private final Map<String, Integer> indexes;
+
+        private Columns(String[] names, int[] positions) {
+            Map<String, Integer> map = new HashMap<>(names.length * 2);
+            int size = 0;
+            for (int i = 0; i < names.length; i++) {
+                if (map.putIfAbsent(names[i], size) == null) {
+                    names[size] = names[i];
+                    positions[size] = positions[i];
+                    size++;
+                }
+            }
+            this.names = (size == names.length ? names : Arrays.copyOf(names, size));
+            this.positions = (size == positions.length ? positions : Arrays.copyOf(positions, size));
+            this.indexes = map;
+        }
+
+        /**
+         * Create columns of all ResultSet columns, a name is a column label
+         * @param rsMeta The ResultSet metadata
+         * @return The columns
+         * @throws SQLException When cannot read metadata
+         */
+        public static Columns of(ResultSetMetaData rsMeta) throws SQLException {
+            int count = rsMeta.getColumnCount();
+            String[] names = new String[count];
+            int[] positions = new int[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = JdbcUtils.getColumnName(rsMeta, i + 1);
+                positions[i] = i + 1;
+            }
+            return new Columns(names, positions);
+        }
+
+        /**
+         * Create columns of some ResultSet columns
+         * @param rs JDBC ResultSet
+         * @param names The column labels
+         * @return The columns
+         * @throws SQLException When a column not found
+         */
+        public static Columns of(ResultSet rs, Collection<String> names) throws SQLException {
+            String[] columnNames = names.toArray(new String[0]);
+            int[] positions = new int[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                positions[i] = rs.findColumn(columnNames[i]);
+            }
+            return new Columns(columnNames, positions);
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        public String getName(int index) {
+            return names[index];
+        }
+
+        public List<String> getNames() {
+            return Collections.unmodifiableList(Arrays.asList(names));
+        }
+
+        /**
+         * Get position of a column
+         * @param name The column name (case-sensitive)
+         * @return The position (first column is 0), -1 when not found
+         */
+        public int indexOf(Object name) {
+            Integer index = indexes.get(name);
+            return (index == null ? -1 : index);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.DateFormats;
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnInfo;
+import io.github.jdevlibs.utils.Validators;
+import io.github.jdevlibs.utils.cache.BoundedCache;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled row reader of a ResultSet. The ResultSetMetaData is read once, and each column get a reader
+ * which read a value by column index, So reading a row don't lookup column by name or switch on the column type.
+ * <pre>
+ * RowReader reader = RowReader.of(sql, rs);
+ * Object[] row = new Object[reader.getColumnCount()];
+ * while (rs.next()) {
+ *     reader.read(rs, row);
+ * }
+ * </pre>
+ * The values are the same as {@link JdbcUtils#getResultSetValue(ResultSet, String, int)}
+ * and {@link JdbcUtils#getResultValue(ResultSet, String, int)}. A RowReader is immutable and thread-safe.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class RowReader {
+    private static final int MAX_PLANS = 512;
+    private static final String FM_TIME = "HH:mm:ss";
+    private static final String FM_DATE_TIME = "dd/MM/yyyy HH:mm:ss";
+    private static final BoundedCache<String, RowReader> PLANS = new BoundedCache<>(MAX_PLANS);
+
+    private final List<ColumnInfo> columnInfos;
+    private final String[] columns;
+    private final int[] types;
+    private final ColumnReader[] valueReaders;
+    private final ColumnReader[] textReaders;
+
+    private RowReader(List<ColumnInfo> columnInfos) {
+        int size = columnInfos.size();
+        this.columnInfos = Collections.unmodifiableList(new ArrayList<>(columnInfos));
+        this.columns = new String[size];
+        this.types = new int[size];
+        this.valueReaders = new ColumnReader[size];
+        this.textReaders = new ColumnReader[size];
+        for (int i = 0; i < size; i++) {
+            ColumnInfo info = columnInfos.get(i);
+            columns[i] = info.getColumn();
+            types[i] = info.getType();
+            valueReaders[i] = valueReader(info.getType());
+            textReaders[i] = textReader(info.getType());
+        }
+    }
+
+    /**
+     * Compile a row reader from ResultSet metadata
+     * @param rsMeta The ResultSetMetaData object
+     * @return The row reader
+     */
+    public static RowReader of(ResultSetMetaData rsMeta) {
+        return new RowReader(JdbcUtils.getColumInfo(rsMeta));
+    }
+
+    /**
+     * Get a row reader of SQL statement, the reader is compiled on a first call and reused for next executions
+     * while column labels and types of ResultSet are same (e.g. a same SQL of other database is compiled again).
+     * @param sql The SQL statement of ResultSet
+     * @param rs JDBC ResultSet
+     * @return The row reader
+     * @throws SQLException When cannot read ResultSet metadata
+     */
+    public static RowReader of(String sql, ResultSet rs) throws SQLException {
+        ResultSetMetaData rsMeta = rs.getMetaData();
+        if (sql == null) {
+            return of(rsMeta);
+        }
+
+        RowReader reader = PLANS.get(sql);
+        if (reader == null || !reader.matches(rsMeta)) {
+            reader = of(rsMeta);
+            PLANS.put(sql, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Check column labels, types and scales of ResultSet are same as this reader
+     */
+    private boolean matches(ResultSetMetaData rsMeta) throws SQLException {
+        if (rsMeta.getColumnCount() != columns.length) {
+            return false;
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            int index = i + 1;
+            if (types[i] != rsMeta.getColumnType(index) || columnInfos.get(i).getDigit() != rsMeta.getScale(index)) {
+                return false;
+            }
+            String label = rsMeta.getColumnLabel(index);
+            if (Validators.isEmpty(label)) {
+                label = rsMeta.getColumnName(index);
+            }
+            if (!columns[i].equals(label)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void clearCache() {
+        PLANS.clear();
+    }
+
+    /**
+     * Read current row values
+     * @param rs JDBC ResultSet
+     * @return The values of current row
+     * @throws SQLException When exception
+     */
+    public Object[] read(ResultSet rs) throws SQLException {
+        Object[] row = new Object[columns.length];
+        read(rs, row);
+        return row;
+    }
+
+    /**
+     * Read current row values into a target array
+     * @param rs JDBC ResultSet
+     * @param row The target array, size must be equals a column count
+     * @throws SQLException When exception
+     */
+    public void read(ResultSet rs, Object[] row) throws SQLException {
+        for (int i = 0; i < valueReaders.length; i++) {
+            row[i] = valueReaders[i].read(rs, i + 1);
+        }
+    }
+
+    /**
+     * Read current row values as string (Date with dd/MM/yyyy HH:mm:ss, Binary as Base64)
+     * @param rs JDBC ResultSet
+     * @return The values of current row
+     * @throws SQLException When exception
+     */
+    public String[] readText(ResultSet rs) throws SQLException {
+        String[] row = new String[columns.length];
+        readText(rs, row);
+        return row;
+    }
+
+    public void readText(ResultSet rs, String[] row) throws SQLException {
+        for (int i = 0; i < textReaders.length; i++) {
+            row[i] = (String) textReaders[i].read(rs, i + 1);
+        }
+    }
+
+    /**
+     * Read a column value of current row
+     * @param rs JDBC ResultSet
+     * @param column The column position (first column is 0)
+     * @return The value
+     * @throws SQLException When exception
+     */
+    public Object readValue(ResultSet rs, int column) throws SQLException {
+        return valueReaders[column].read(rs, column + 1);
+    }
+
+    public String readText(ResultSet rs, int column) throws SQLException {
+        return (String) textReaders[column].read(rs, column + 1);
+    }
+
+    /**
+     * Read all remaining rows
+     * @param rs JDBC ResultSet
+     * @return Collection of row values
+     * @throws SQLException When exception
+     */
+    public List<Object[]> readAll(ResultSet rs) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(read(rs));
+        }
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String getColumn(int column) {
+        return columns[column];
+    }
+
+    public int getType(int column) {
+        return types[column];
+    }
+
+    public List<ColumnInfo> getColumnInfos() {
+        return columnInfos;
+    }
+
+    /**
+     * Get position of a column label
+     * @param column The column label (case-insensitive)
+     * @return The position (first column is 0), -1 when not found
+     */
+    public int indexOf(String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static ColumnReader valueReader(int type) {
+        switch (type) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.NVARCHAR:
+            case Types.NCHAR:
+                return ResultSet::getString;
+            case Types.DATE:
+                return ResultSet::getDate;
+            case Types.TIMESTAMP:
+                return ResultSet::getTimestamp;
+            case Types.TIME:
+                return ResultSet::getTime;
+            case Types.CLOB:
+                return (rs, index) -> JdbcUtils.readClob(rs.getClob(index));
+            case Types.BLOB:
+                return ResultSet::getBytes;
+            default:
+                return ResultSet::getObject;
+        }
+    }
+
+    static ColumnReader textReader(int type) {
+        switch (type) {
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.CHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARCHAR:
+                return ResultSet::getString;
+            case Types.DATE:
+                return (rs, index) -> DateFormats.format(rs.getDate(index), FM_DATE_TIME);
+            case Types.TIMESTAMP:
+                return (rs, index) -> DateFormats.format(rs.getTimestamp(index), FM_DATE_TIME);
+            case Types.TIME:
+                return (rs, index) -> DateFormats.format(rs.getTime(index), FM_TIME);
+            case Types.CLOB:
+                return (rs, index) -> JdbcUtils.readClob(rs.getClob(index));
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return (rs, index) -> JdbcUtils.readBlob(rs.getBytes(index));
+            default:
+                return (rs, index) -> {
+                    Object obj = rs.getObject(index);
+                    return (obj == null ? null : obj.toString());
+                };
+        }
+    }
+
+    /**
+     * Read a value of column from a current row of ResultSet
+     */
+    @FunctionalInterface
+    public interface ColumnReader {
+        Object read(ResultSet rs, int index) throws SQLException;
+    }
+}
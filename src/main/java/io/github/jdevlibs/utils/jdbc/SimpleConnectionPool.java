@@ -0,0 +1,738 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Minimal connection pool for small tools and batch jobs.
+ * <pre>
+ * try (SimpleConnectionPool pool = new SimpleConnectionPool(url, user, password)
+ *         .maxSize(10)
+ *         .idleTimeout(5, TimeUnit.MINUTES)
+ *         .maxLifetime(30, TimeUnit.MINUTES)) {
+ *     try (Connection conn = pool.getConnection()) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Idle connections are kept in a lock-free deque (last returned is borrowed first) and a Semaphore limit
+ * the number of connections. A borrowed connection is checked with {@link Connection#isValid(int)} when it is idle
+ * longer than a validation interval. Closing a borrowed connection return it to the pool, auto-commit, read-only,
+ * isolation, catalog and schema are restored, an open transaction is rolled back and statements which are not closed
+ * are closed. Statements, ResultSets and DatabaseMetaData of a borrowed connection return the borrowed connection
+ * from getConnection() and getStatement(), unwrap(Connection.class) return the borrowed connection
+ * (unwrap to a driver interface return a driver object, it must not be closed).
+ * Settings must be configured before a first {@link #getConnection()}.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class SimpleConnectionPool implements DataSource, AutoCloseable {
+    public static final int DEFAULT_MAX_SIZE = 10;
+
+    private static final AtomicInteger POOL_SEQ = new AtomicInteger();
+    private static final String SQL_STATE_CONNECTION = "08";
+
+    private final ConnectionFactory factory;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder closeCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final Histogram waitTime = new Histogram();
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private int minIdle = 0;
+    private long borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+    private long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(10);
+    private long maxLifetimeMillis = TimeUnit.MINUTES.toMillis(30);
+    private long validationIntervalMillis = 500L;
+    private int validationTimeoutSeconds = 5;
+
+    private volatile Semaphore permits;
+    private volatile ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+    private PrintWriter logWriter;
+
+    public SimpleConnectionPool(String url, String user, String password) {
+        this(() -> DriverManager.getConnection(url, user, password));
+    }
+
+    public SimpleConnectionPool(String url, Properties properties) {
+        this(() -> DriverManager.getConnection(url, properties));
+    }
+
+    /**
+     * Create pool of connections from a factory
+     * @param factory The connection factory
+     */
+    public SimpleConnectionPool(ConnectionFactory factory) {
+        this.factory = factory;
+    }
+
+    public SimpleConnectionPool maxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Set minimum number of idle connections kept by housekeeping
+     * @param minIdle The number of connections
+     * @return This pool
+     */
+    public SimpleConnectionPool minIdle(int minIdle) {
+        this.minIdle = Math.max(minIdle, 0);
+        return this;
+    }
+
+    /**
+     * Set maximum time to wait for a connection when all connections are in use
+     * @param timeout The timeout
+     * @param unit The unit of timeout
+     * @return This pool
+     */
+    public SimpleConnectionPool borrowTimeout(long timeout, TimeUnit unit) {
+        this.borrowTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Set time after which an idle connection is closed, 0 is never
+     * @param timeout The timeout
+     * @param unit The unit of timeout
+     * @return This pool
+     */
+    public SimpleConnectionPool idleTimeout(long timeout, TimeUnit unit) {
+        this.idleTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Set maximum age of a connection, an older connection is closed when it is returned or idle, 0 is never
+     * @param lifetime The lifetime
+     * @param unit The unit of lifetime
+     * @return This pool
+     */
+    public SimpleConnectionPool maxLifetime(long lifetime, TimeUnit unit) {
+        this.maxLifetimeMillis = unit.toMillis(lifetime);
+        return this;
+    }
+
+    /**
+     * Set idle time after which a connection is validated on borrow, 0 is validate on every borrow
+     * @param interval The interval
+     * @param unit The unit of interval
+     * @return This pool
+     */
+    public SimpleConnectionPool validationInterval(long interval, TimeUnit unit) {
+        this.validationIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    public SimpleConnectionPool validationTimeout(int seconds) {
+        this.validationTimeoutSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Borrow a connection, close it to return it to the pool
+     * @return The connection
+     * @throws SQLException When the pool is closed, a borrow timeout or cannot create a connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        Semaphore semaphore = start();
+        long start = System.nanoTime();
+        try {
+            if (!semaphore.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Connection is not available, timeout after "
+                        + borrowTimeoutMillis + "ms (active " + getActiveCount() + ", max " + maxSize + ")");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", ex);
+        }
+
+        try {
+            PooledConnection pooled = borrowIdle();
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrowCount.increment();
+            waitTime.record(System.nanoTime() - start);
+            return pooled.lease();
+        } catch (SQLException | RuntimeException ex) {
+            semaphore.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connection pool use configured credentials");
+    }
+
+    /**
+     * Close idle connections and stop housekeeping, borrowed connections are closed when returned
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledExecutorService service = housekeeper;
+        if (service != null) {
+            service.shutdownNow();
+        }
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get number of open connections (idle and in use)
+     * @return The number of connections
+     */
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        Semaphore semaphore = permits;
+        return (semaphore == null ? 0 : maxSize - semaphore.availablePermits());
+    }
+
+    /**
+     * Get number of threads waiting for a connection
+     * @return The number of threads (estimate)
+     */
+    public int getWaitingCount() {
+        Semaphore semaphore = permits;
+        return (semaphore == null ? 0 : semaphore.getQueueLength());
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getCreateCount() {
+        return createCount.sum();
+    }
+
+    public long getCloseCount() {
+        return closeCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * Get histogram of time to borrow a connection in nanoseconds
+     * @return The wait time snapshot
+     */
+    public Histogram.Snapshot getWaitTime() {
+        return waitTime.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleConnectionPool{total=" + getTotalCount() + ", active=" + getActiveCount()
+                + ", idle=" + getIdleCount() + ", waiting=" + getWaitingCount() + ", max=" + maxSize + "}";
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper of " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private Semaphore start() {
+        Semaphore semaphore = permits;
+        if (semaphore != null) {
+            return semaphore;
+        }
+
+        synchronized (this) {
+            if (permits == null) {
+                ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "connection-pool-" + POOL_SEQ.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long period = housekeepingPeriod();
+                service.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+                housekeeper = service;
+                permits = new Semaphore(maxSize);
+            }
+            return permits;
+        }
+    }
+
+    private long housekeepingPeriod() {
+        long period = TimeUnit.SECONDS.toMillis(30);
+        if (idleTimeoutMillis > 0) {
+            period = Math.min(period, idleTimeoutMillis);
+        }
+        if (maxLifetimeMillis > 0) {
+            period = Math.min(period, maxLifetimeMillis);
+        }
+        return Math.max(period, 100L);
+    }
+
+    private PooledConnection borrowIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (pooled.isExpired(now)) {
+                pooled.closePhysical();
+                continue;
+            }
+            if (now - pooled.lastUsed >= validationIntervalMillis && !pooled.isValid()) {
+                pooled.closePhysical();
+                continue;
+            }
+            return pooled;
+        }
+        return null;
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection conn = factory.create();
+        if (conn == null) {
+            throw new SQLException("Connection factory return null");
+        }
+
+        total.incrementAndGet();
+        createCount.increment();
+        try {
+            return new PooledConnection(conn);
+        } catch (SQLException ex) {
+            total.decrementAndGet();
+            JdbcUtils.close(conn);
+            throw ex;
+        }
+    }
+
+    private void release(PooledConnection pooled, boolean broken) {
+        try {
+            pooled.closeStatements();
+            if (closed || broken || pooled.isExpired(System.currentTimeMillis()) || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                pooled.lastUsed = System.currentTimeMillis();
+                offerIdle(pooled, true);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Add an idle connection, a connection added while a pool is closing is closed here
+     * (a connection is closed once, by a thread which remove it from a deque)
+     */
+    private void offerIdle(PooledConnection pooled, boolean first) {
+        if (first) {
+            idle.offerFirst(pooled);
+        } else {
+            idle.offerLast(pooled);
+        }
+        if (closed && idle.removeFirstOccurrence(pooled)) {
+            pooled.closePhysical();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            fillIdle();
+        } catch (RuntimeException ex) {
+            //Ignore, keep housekeeping scheduled
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        int idleCount = idle.size();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            boolean idleExpired = idleTimeoutMillis > 0 && now - pooled.lastUsed > idleTimeoutMillis
+                    && idleCount > minIdle;
+            if ((idleExpired || pooled.isExpired(now)) && idle.removeFirstOccurrence(pooled)) {
+                pooled.closePhysical();
+                idleCount--;
+            }
+        }
+    }
+
+    private void fillIdle() {
+        Semaphore semaphore = permits;
+        while (!closed && idle.size() < minIdle && total.get() < maxSize && semaphore.tryAcquire()) {
+            try {
+                PooledConnection pooled = create();
+                pooled.lastUsed = System.currentTimeMillis();
+                offerIdle(pooled, false);
+            } catch (SQLException ex) {
+                break;
+            } finally {
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Create a physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection conn;
+        private final long createdAt;
+        private final boolean autoCommit;
+        private final boolean readOnly;
+        private final int isolation;
+        private final String catalog;
+        private final String schema;
+        private volatile long lastUsed;
+        private final Set<Statement> statements = Collections.newSetFromMap(new IdentityHashMap<>());
+        private volatile Connection proxy;
+        private volatile boolean broken;
+        private boolean dirty;
+
+        private PooledConnection(Connection conn) throws SQLException {
+            this.conn = conn;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+            this.autoCommit = conn.getAutoCommit();
+            this.readOnly = conn.isReadOnly();
+            this.isolation = conn.getTransactionIsolation();
+            this.catalog = conn.getCatalog();
+            this.schema = getSchema(conn);
+        }
+
+        private String getSchema(Connection conn) {
+            try {
+                return conn.getSchema();
+            } catch (SQLException | AbstractMethodError ex) {
+                // JDBC 4.0 driver
+                return null;
+            }
+        }
+
+        private Connection lease() {
+            broken = false;
+            dirty = false;
+            proxy = (Connection) Proxy.newProxyInstance(SimpleConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+            return proxy;
+        }
+
+        @Override
+        public Object invoke(Object proxyConn, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                switch (name) {
+                    case "equals":
+                        return proxyConn == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxyConn);
+                    default:
+                        return "Pooled[" + conn + "]";
+                }
+            }
+
+            boolean current = (proxyConn == proxy);
+            switch (name) {
+                case "close":
+                    if (endLease(proxyConn)) {
+                        release(this, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return !current || conn.isClosed();
+                case "abort":
+                    if (endLease(proxyConn)) {
+                        release(this, true);
+                    }
+                    return null;
+                default:
+                    break;
+            }
+
+            if (!current) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("unwrap".equals(name) && ((Class<?>) args[0]).isInstance(proxyConn)) {
+                return proxyConn;
+            }
+            if (name.startsWith("set") || "commit".equals(name) || "rollback".equals(name)) {
+                dirty = true;
+            }
+            Object result = invokeTarget(conn, method, args);
+            if (result instanceof Statement) {
+                Statement stmt = (Statement) result;
+                synchronized (statements) {
+                    statements.add(stmt);
+                }
+                return wrap(method.getReturnType(), new LeasedObject(stmt, proxyConn, null));
+            }
+            if (result instanceof DatabaseMetaData) {
+                return wrap(DatabaseMetaData.class, new LeasedObject(result, proxyConn, null));
+            }
+            return result;
+        }
+
+        private Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith(SQL_STATE_CONNECTION)) {
+                        broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+
+        private Object wrap(Class<?> type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(SimpleConnectionPool.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+
+        /**
+         * Close statements which are not closed by a caller of a lease
+         */
+        private void closeStatements() {
+            List<Statement> open;
+            synchronized (statements) {
+                if (statements.isEmpty()) {
+                    return;
+                }
+                open = new ArrayList<>(statements);
+                statements.clear();
+            }
+            for (Statement stmt : open) {
+                JdbcUtils.close(stmt);
+            }
+        }
+
+        private synchronized boolean endLease(Object proxyConn) {
+            if (proxyConn != proxy) {
+                return false;
+            }
+            proxy = null;
+            return true;
+        }
+
+        private boolean isExpired(long now) {
+            return maxLifetimeMillis > 0 && now - createdAt > maxLifetimeMillis;
+        }
+
+        private boolean isValid() {
+            try {
+                return conn.isValid(validationTimeoutSeconds);
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        /**
+         * Restore connection state, return false when a connection cannot be reused
+         */
+        private boolean reset() {
+            try {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                }
+                if (dirty) {
+                    if (conn.getAutoCommit() != autoCommit) {
+                        conn.setAutoCommit(autoCommit);
+                    }
+                    if (conn.isReadOnly() != readOnly) {
+                        conn.setReadOnly(readOnly);
+                    }
+                    if (conn.getTransactionIsolation() != isolation) {
+                        conn.setTransactionIsolation(isolation);
+                    }
+                    if (catalog != null && !catalog.equals(conn.getCatalog())) {
+                        conn.setCatalog(catalog);
+                    }
+                    if (schema != null && !schema.equals(conn.getSchema())) {
+                        conn.setSchema(schema);
+                    }
+                }
+                conn.clearWarnings();
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            total.decrementAndGet();
+            closeCount.increment();
+            JdbcUtils.close(conn);
+        }
+
+        /**
+         * Statement, ResultSet or DatabaseMetaData of a lease, getConnection() return a borrowed connection
+         * and getStatement() of a ResultSet return a wrapped statement
+         */
+        private final class LeasedObject implements InvocationHandler {
+            private final Object target;
+            private final Object proxyConn;
+            private final Object proxyStatement;
+
+            private LeasedObject(Object target, Object proxyConn, Object proxyStatement) {
+                this.target = target;
+                this.proxyConn = proxyConn;
+                this.proxyStatement = proxyStatement;
+            }
+
+            @Override
+            public Object invoke(Object proxyObject, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (name) {
+                        case "equals":
+                            return proxyObject == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxyObject);
+                        default:
+                            return "Pooled[" + target + "]";
+                    }
+                }
+
+                if ("getConnection".equals(name)) {
+                    return proxyConn;
+                }
+                if ("getStatement".equals(name) && proxyStatement != null) {
+                    return proxyStatement;
+                }
+                if ("unwrap".equals(name) && ((Class<?>) args[0]).isInstance(proxyObject)) {
+                    return proxyObject;
+                }
+                if ("close".equals(name) && target instanceof Statement) {
+                    synchronized (statements) {
+                        statements.remove(target);
+                    }
+                }
+
+                Object result = invokeTarget(target, method, args);
+                if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+                    // a ResultSet of DatabaseMetaData return a statement of a driver, it is wrapped too
+                    return wrap(ResultSet.class, new LeasedObject(result, proxyConn,
+                            (target instanceof Statement ? proxyObject : null)));
+                }
+                if (result instanceof Statement && method.getReturnType() == Statement.class) {
+                    return wrap(Statement.class, new LeasedObject(result, proxyConn, null));
+                }
+                return result;
+            }
+        }
+    }
+}
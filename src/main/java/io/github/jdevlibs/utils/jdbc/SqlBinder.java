@@ -0,0 +1,173 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bind values to a PreparedStatement using JDBC column types of a table
+ * @author supot.jdev
+ * @version 1.0
+ */
+final class SqlBinder {
+
+    private SqlBinder() {
+    }
+
+    /**
+     * Bind a value, String value of non-character column is converted with {@link JdbcUtils#toSqlValue(int, String)}
+     * @param ps The prepared statement
+     * @param index The parameter index (first parameter is 1)
+     * @param type The JDBC column type
+     * @param value The value
+     * @throws SQLException When cannot bind a value
+     */
+    static void bind(PreparedStatement ps, int index, int type, Object value) throws SQLException {
+        Object sqlValue = toSqlValue(type, value);
+        if (sqlValue == null) {
+            ps.setNull(index, type);
+        } else {
+            ps.setObject(index, sqlValue);
+        }
+    }
+
+    /**
+     * Bind a value of unknown column type, String value is bound as is and java.time values are converted
+     * @param ps The prepared statement
+     * @param index The parameter index (first parameter is 1)
+     * @param value The value
+     * @throws SQLException When cannot bind a value
+     */
+    static void bindObject(PreparedStatement ps, int index, Object value) throws SQLException {
+        Object sqlValue = toSqlValue(Types.VARCHAR, value);
+        if (sqlValue == null) {
+            ps.setNull(index, Types.NULL);
+        } else {
+            ps.setObject(index, sqlValue);
+        }
+    }
+
+    static Object toSqlValue(int type, Object value) {
+        if (value instanceof String) {
+            if (isCharacter(type)) {
+                return value;
+            }
+            if (((String) value).isEmpty()) {
+                return null;
+            }
+            return JdbcUtils.toSqlValue(type, (String) value);
+        } else if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            return java.sql.Date.valueOf((LocalDate) value);
+        } else if (value instanceof LocalTime) {
+            return java.sql.Time.valueOf((LocalTime) value);
+        } else if (value instanceof java.util.Date && !(value instanceof java.sql.Date)
+                && !(value instanceof Timestamp) && !(value instanceof java.sql.Time)) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        }
+        return value;
+    }
+
+    static boolean isCharacter(int type) {
+        switch (type) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGVARCHAR:
+            case Types.NVARCHAR:
+            case Types.NCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create case-insensitive view of Map row
+     * @param row The row values keyed by column name
+     * @return Case-insensitive map
+     */
+    static Map<String, Object> caseInsensitive(Map<String, ?> row) {
+        Map<String, Object> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        values.putAll(row);
+        return values;
+    }
+
+    /**
+     * Resolve bean getters of columns, column without a getter is null
+     * @param beanClass The bean class
+     * @param columns The table columns
+     * @return Getter of each column
+     */
+    static Method[] getters(Class<?> beanClass, String[] columns) {
+        Method[] getters = new Method[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Method getter = ReflectionUtils.findGetterMethod(beanClass, JdbcUtils.toPropertyName(columns[i]));
+            if (getter != null) {
+                getter.setAccessible(true);
+            }
+            getters[i] = getter;
+        }
+        return getters;
+    }
+
+    static Object[] beanValues(Object bean, Method[] getters) throws SQLException {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            if (getters[i] == null) {
+                continue;
+            }
+            try {
+                values[i] = getters[i].invoke(bean);
+            } catch (ReflectiveOperationException ex) {
+                throw new SQLException("Cannot read property of column " + (i + 1), ex);
+            }
+        }
+        return values;
+    }
+
+    static Object[] mapValues(Map<String, ?> row, String[] columns) {
+        Object[] result = new Object[columns.length];
+        Map<String, Object> insensitive = null;
+        for (int i = 0; i < columns.length; i++) {
+            Object value = row.get(columns[i]);
+            if (value == null && !row.containsKey(columns[i])) {
+                if (insensitive == null) {
+                    insensitive = caseInsensitive(row);
+                }
+                value = insensitive.get(columns[i]);
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+}
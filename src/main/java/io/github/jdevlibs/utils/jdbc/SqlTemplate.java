@@ -0,0 +1,275 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.ReflectionUtils;
+import io.github.jdevlibs.utils.cache.BoundedCache;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL with named parameters (e.g. :name), a template is parsed once and cached by SQL.
+ * <pre>
+ * SqlTemplate template = SqlTemplate.of("SELECT * FROM EMPLOYEE WHERE NAME LIKE :name ESCAPE '!' AND DEPT_ID = :dept");
+ *
+ * Map&lt;String, Object&gt; params = new HashMap&lt;&gt;();
+ * params.put("name", JdbcUtils.sqlFullLike(keyword));
+ * params.put("dept", 10);
+ * try (PreparedStatement ps = template.prepare(conn, params)) { ... }
+ * </pre>
+ * Parameters in quoted strings, quoted identifiers and comments are ignored, a PostgreSQL cast (::) is not a parameter.
+ * A name can be used many times, each occurrence is bound with the same value.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public final class SqlTemplate {
+    private static final int MAX_TEMPLATES = 1024;
+    private static final BoundedCache<String, SqlTemplate> TEMPLATES = new BoundedCache<>(MAX_TEMPLATES);
+
+    private final String source;
+    private final String sql;
+    private final String[] parameters;
+    private final Map<String, int[]> indexes;
+    private final Map<Class<?>, Method[]> getters = new ConcurrentHashMap<>();
+
+    private SqlTemplate(String source, String sql, String[] parameters) {
+        this.source = source;
+        this.sql = sql;
+        this.parameters = parameters;
+
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i++) {
+            positions.computeIfAbsent(parameters[i], key -> new ArrayList<>()).add(i + 1);
+        }
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.indexes = Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get a parsed template, the result is cached by SQL
+     * @param sql The SQL with named parameters
+     * @return The template
+     */
+    public static SqlTemplate of(String sql) {
+        return TEMPLATES.get(sql, SqlTemplate::parse);
+    }
+
+    public static void clearCache() {
+        TEMPLATES.clear();
+    }
+
+    /**
+     * Parse SQL without caching
+     * @param source The SQL with named parameters
+     * @return The template
+     */
+    public static SqlTemplate parse(String source) {
+        int length = source.length();
+        StringBuilder sb = new StringBuilder(length);
+        List<String> names = new ArrayList<>();
+        int i = 0;
+        while (i < length) {
+            char ch = source.charAt(i);
+            int end = i + 1;
+            if (ch == '\'' || ch == '"' || ch == '`') {
+                end = skipQuoted(source, i + 1, ch);
+            } else if (ch == '[') {
+                end = skipTo(source, i + 1, "]");
+            } else if (ch == '-' && i + 1 < length && source.charAt(i + 1) == '-') {
+                end = skipTo(source, i + 2, "\n");
+            } else if (ch == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                end = skipTo(source, i + 2, "*/");
+            } else if (ch == ':' && i + 1 < length && source.charAt(i + 1) == ':') {
+                end = i + 2;
+            } else if (ch == ':' && i + 1 < length && isNameStart(source.charAt(i + 1))) {
+                end = i + 2;
+                while (end < length && isNamePart(source.charAt(end))) {
+                    end++;
+                }
+                names.add(source.substring(i + 1, end));
+                sb.append('?');
+                i = end;
+                continue;
+            }
+            sb.append(source, i, end);
+            i = end;
+        }
+        return new SqlTemplate(source, sb.toString(), names.toArray(new String[0]));
+    }
+
+    /**
+     * Get the original SQL with named parameters
+     * @return The SQL
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Get JDBC SQL, named parameters are replaced with ?
+     * @return The SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Get parameter name of each ? in order
+     * @return The parameter names
+     */
+    public List<String> getParameters() {
+        return Collections.unmodifiableList(Arrays.asList(parameters));
+    }
+
+    /**
+     * Get positions of a parameter
+     * @param name The parameter name
+     * @return The positions (first ? is 1), empty when not found
+     */
+    public int[] getIndexes(String name) {
+        int[] result = indexes.get(name);
+        return (result == null ? new int[0] : result.clone());
+    }
+
+    public int getParameterCount() {
+        return parameters.length;
+    }
+
+    /**
+     * Convert named values to positional values
+     * @param params The parameter values
+     * @return The values ordered by ?
+     * @throws SQLException When a parameter value is missing
+     */
+    public Object[] toArgs(Map<String, ?> params) throws SQLException {
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            args[i] = value(params, parameters[i]);
+        }
+        return args;
+    }
+
+    public PreparedStatement prepare(Connection conn, Map<String, ?> params) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        try {
+            bind(ps, params);
+            return ps;
+        } catch (SQLException ex) {
+            JdbcUtils.close(ps);
+            throw ex;
+        }
+    }
+
+    /**
+     * Bind named values, a Map must contain all parameters (value can be null)
+     * @param ps The prepared statement of {@link #getSql()}
+     * @param params The parameter values
+     * @throws SQLException When a parameter value is missing or cannot bind a value
+     */
+    public void bind(PreparedStatement ps, Map<String, ?> params) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            SqlBinder.bindObject(ps, i + 1, value(params, parameters[i]));
+        }
+    }
+
+    /**
+     * Bind bean properties, a parameter name is a property name
+     * @param ps The prepared statement of {@link #getSql()}
+     * @param bean The bean
+     * @throws SQLException When a property not found or cannot bind a value
+     */
+    public void bindBean(PreparedStatement ps, Object bean) throws SQLException {
+        Method[] methods = getters.computeIfAbsent(bean.getClass(), this::resolveGetters);
+        for (int i = 0; i < parameters.length; i++) {
+            if (methods[i] == null) {
+                throw new SQLException("Property " + parameters[i] + " not found in " + bean.getClass().getName());
+            }
+            try {
+                SqlBinder.bindObject(ps, i + 1, methods[i].invoke(bean));
+            } catch (ReflectiveOperationException ex) {
+                throw new SQLException("Cannot read property " + parameters[i], ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    private Method[] resolveGetters(Class<?> beanClass) {
+        Method[] methods = new Method[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Method getter = ReflectionUtils.findGetterMethod(beanClass, parameters[i]);
+            if (getter != null) {
+                getter.setAccessible(true);
+            }
+            methods[i] = getter;
+        }
+        return methods;
+    }
+
+    private static Object value(Map<String, ?> params, String name) throws SQLException {
+        Object value = params.get(name);
+        if (value == null && !params.containsKey(name)) {
+            throw new SQLException("Missing value of parameter :" + name);
+        }
+        return value;
+    }
+
+    private static int skipQuoted(String sql, int from, char quote) {
+        int i = from;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipTo(String sql, int from, String end) {
+        int index = sql.indexOf(end, from);
+        return (index < 0 ? sql.length() : index + end.length());
+    }
+
+    private static boolean isNameStart(char ch) {
+        return Character.isLetter(ch) || ch == '_';
+    }
+
+    private static boolean isNamePart(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+}
@@ -0,0 +1,432 @@
+/*  ---------------------------------------------------------------------------
+ *  * Copyright 2020-2021 the original author or authors.
+ *  *
+ *  * Licensed under the Apache License, Version 2.0 (the "License");
+ *  * you may not use this file except in compliance with the License.
+ *  * You may obtain a copy of the License at
+ *  *
+ *  *      https://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the License for the specific language governing permissions and
+ *  * limitations under the License.
+ *  ---------------------------------------------------------------------------
+ */
+package io.github.jdevlibs.utils.jdbc;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.JdbcUtils.ColumnType;
+import io.github.jdevlibs.utils.cache.BoundedCache;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Insert or update rows by key in batches with one statement per row, instead of select then insert or update.
+ * <ul>
+ *     <li>MySQL : INSERT ... ON DUPLICATE KEY UPDATE</li>
+ *     <li>Oracle : MERGE INTO ... USING (SELECT ... FROM DUAL)</li>
+ *     <li>SQL Server : MERGE INTO ... WITH (HOLDLOCK) USING (VALUES (...)), a key range is locked
+ *     so concurrent writers of a same key do not both insert</li>
+ *     <li>Others : MERGE INTO ... USING (VALUES (...)) (SQL:2003 MERGE)</li>
+ * </ul>
+ * <pre>
+ * try (UpsertWriter writer = UpsertWriter.create(conn, "EMPLOYEE", 1000)) {
+ *     for (Employee employee : employees) {
+ *         writer.addBean(employee);
+ *     }
+ * }
+ * </pre>
+ * A key is a primary key ({@link JdbcUtils#getPrimaryKey}) or given key columns, column types are read from
+ * {@link JdbcUtils#getColumnSqlType}, both are cached. Generated SQL is cached per table and columns.
+ * A writer of all table columns skip auto-increment (identity) and generated columns which are not key columns,
+ * a generated key column is written as given (e.g. SQL Server need IDENTITY_INSERT ON).
+ * On MySQL a key can be any unique key of a table, add rewriteBatchedStatements=true to a URL for a best throughput.
+ * A transaction is controlled by a caller. An UpsertWriter is not thread-safe.
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class UpsertWriter implements AutoCloseable {
+    private static final int MAX_STATEMENTS = 512;
+    private static final BoundedCache<String, String> STATEMENTS = new BoundedCache<>(MAX_STATEMENTS);
+
+    private final Connection conn;
+    private final String table;
+    private final String[] columns;
+    private final int[] types;
+    private final int batchSize;
+    private final String sql;
+
+    private PreparedStatement statement;
+    private Class<?> beanClass;
+    private Method[] getters;
+    private int pendingCount;
+    private long rowCount;
+    private long batchCount;
+
+    protected UpsertWriter(Connection conn, String table, Map<String, ColumnType> columnTypes, String[] keys,
+                           int batchSize) throws SQLException {
+        if (columnTypes == null || columnTypes.isEmpty()) {
+            throw new SQLException("Table " + table + " has no columns");
+        }
+
+        this.conn = conn;
+        this.table = table;
+        this.batchSize = (batchSize <= 0 ? BatchWriter.DEFAULT_BATCH_SIZE : batchSize);
+        this.columns = new String[columnTypes.size()];
+        this.types = new int[columnTypes.size()];
+        int i = 0;
+        for (Map.Entry<String, ColumnType> entry : columnTypes.entrySet()) {
+            columns[i] = entry.getKey();
+            types[i] = entry.getValue().getType();
+            i++;
+        }
+        this.sql = getSql(Dialect.of(conn), table, columns, keys);
+    }
+
+    /**
+     * Create upsert writer of all table columns by a primary key
+     * @param conn The connection
+     * @param table The table name (e.g. TABLE or SCHEMA.TABLE)
+     * @return The upsert writer
+     * @throws SQLException When cannot read table metadata or a table has no primary key
+     */
+    public static UpsertWriter create(Connection conn, String table) throws SQLException {
+        return create(conn, table, BatchWriter.DEFAULT_BATCH_SIZE);
+    }
+
+    public static UpsertWriter create(Connection conn, String table, int batchSize) throws SQLException {
+        JdbcMetadataCache cache = JdbcMetadataCache.getDefault();
+        DatabaseMetaData dbMeta = conn.getMetaData();
+        Map<String, ColumnType> columnTypes = new LinkedHashMap<>(cache.getColumnSqlType(dbMeta, table));
+        String[] keys = primaryKey(conn, table);
+        Set<String> generated = new HashSet<>(cache.getGeneratedColumns(dbMeta, table));
+        generated.removeAll(Arrays.asList(keys));
+        columnTypes.keySet().removeAll(generated);
+        return new UpsertWriter(conn, table, columnTypes, keys, batchSize);
+    }
+
+    /**
+     * Create upsert writer of some table columns by a primary key
+     * @param conn The connection
+     * @param table The table name
+     * @param columns The columns to write, must contain key columns
+     * @param batchSize The number of rows per batch
+     * @return The upsert writer
+     * @throws SQLException When cannot read table metadata, a column not found or a table has no primary key
+     */
+    public static UpsertWriter create(Connection conn, String table, Collection<String> columns, int batchSize)
+            throws SQLException {
+        return create(conn, table, columns, null, batchSize);
+    }
+
+    /**
+     * Create upsert writer of some table columns by key columns
+     * @param conn The connection
+     * @param table The table name
+     * @param columns The columns to write, must contain key columns
+     * @param keys The key columns (unique together), null is a primary key
+     * @param batchSize The number of rows per batch
+     * @return The upsert writer
+     * @throws SQLException When cannot read table metadata or a column not found
+     */
+    public static UpsertWriter create(Connection conn, String table, Collection<String> columns,
+                                      Collection<String> keys, int batchSize) throws SQLException {
+        Map<String, ColumnType> tableTypes = JdbcMetadataCache.getDefault()
+                .getColumnSqlType(conn.getMetaData(), table);
+        String[] keyColumns = (keys == null ? primaryKey(conn, table) : keys.toArray(new String[0]));
+        return new UpsertWriter(conn, table, BatchWriter.selectColumns(table, tableTypes, columns), keyColumns,
+                batchSize);
+    }
+
+    /**
+     * Get upsert statement, the result is cached
+     * @param dialect The database dialect
+     * @param table The table name
+     * @param columns The columns in order of parameters
+     * @param keys The key columns (case-insensitive), must be in columns
+     * @return The SQL
+     * @throws SQLException When a key is not in columns
+     */
+    public static String getSql(Dialect dialect, String table, String[] columns, String[] keys)
+            throws SQLException {
+        if (keys == null || keys.length == 0) {
+            throw new SQLException("Key columns of table " + table + " is required");
+        }
+
+        String cacheKey = dialect + "|" + table + "|" + String.join(",", columns) + "|" + String.join(",", keys);
+        String result = STATEMENTS.get(cacheKey);
+        if (result == null) {
+            boolean[] keyFlags = keyFlags(table, columns, keys);
+            switch (dialect) {
+                case MYSQL:
+                    result = mysqlSql(table, columns, keyFlags);
+                    break;
+                case ORACLE:
+                    result = oracleSql(table, columns, keyFlags);
+                    break;
+                default:
+                    result = mergeValuesSql(table, columns, keyFlags, dialect == Dialect.MSSQL);
+                    break;
+            }
+            STATEMENTS.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Add a row, Map keys are matched to column names (case-insensitive), missing key is written as null
+     * @param row The row values
+     * @throws SQLException When cannot write a batch
+     */
+    public void add(Map<String, ?> row) throws SQLException {
+        addValues(SqlBinder.mapValues(row, columns));
+    }
+
+    /**
+     * Add a bean, Columns are matched to bean properties (e.g. EMPLOYEE_NAME to employeeName)
+     * @param bean The bean
+     * @throws SQLException When cannot write a batch
+     */
+    public void addBean(Object bean) throws SQLException {
+        if (bean.getClass() != beanClass) {
+            beanClass = bean.getClass();
+            getters = SqlBinder.getters(beanClass, columns);
+        }
+        addValues(SqlBinder.beanValues(bean, getters));
+    }
+
+    /**
+     * Add a row, Values are ordered by {@link #getColumns()}
+     * @param values The row values
+     * @throws SQLException When cannot write a batch
+     */
+    public void addValues(Object... values) throws SQLException {
+        if (values.length != columns.length) {
+            throw new SQLException("Expected " + columns.length + " values, actual " + values.length);
+        }
+
+        if (statement == null) {
+            statement = conn.prepareStatement(sql);
+        }
+        for (int i = 0; i < values.length; i++) {
+            SqlBinder.bind(statement, i + 1, types[i], values[i]);
+        }
+        statement.addBatch();
+        pendingCount++;
+        if (pendingCount >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all pending rows. Pending rows are discarded when a batch fail, they are not written again
+     * by a next flush or close.
+     * @throws SQLException When cannot write a batch
+     */
+    public void flush() throws SQLException {
+        if (pendingCount == 0) {
+            return;
+        }
+
+        try {
+            statement.executeBatch();
+            batchCount++;
+            rowCount += pendingCount;
+        } finally {
+            pendingCount = 0;
+            try {
+                statement.clearBatch();
+            } catch (SQLException ex) {
+                //Ignore
+            }
+        }
+    }
+
+    /**
+     * Write pending rows and close a statement, the connection is not closed
+     * @throws SQLException When cannot write a batch
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            JdbcUtils.close(statement);
+            statement = null;
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Get number of rows written to a database (inserted or updated)
+     * @return The number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    private static String[] primaryKey(Connection conn, String table) throws SQLException {
+        Map<String, String> primaryKey = JdbcMetadataCache.getDefault().getPrimaryKey(conn.getMetaData(), table);
+        if (primaryKey.isEmpty()) {
+            throw new SQLException("Table " + table + " has no primary key");
+        }
+        return primaryKey.keySet().toArray(new String[0]);
+    }
+
+    private static boolean[] keyFlags(String table, String[] columns, String[] keys) throws SQLException {
+        boolean[] flags = new boolean[columns.length];
+        for (String key : keys) {
+            boolean found = false;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equalsIgnoreCase(key)) {
+                    flags[i] = true;
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new SQLException("Key column " + key + " is not written to table " + table);
+            }
+        }
+        return flags;
+    }
+
+    private static String mysqlSql(String table, String[] columns, boolean[] keyFlags) {
+        StringBuilder sb = new StringBuilder(128 + columns.length * 40);
+        sb.append("INSERT INTO ").append(table).append(" (");
+        appendColumns(sb, columns, "");
+        sb.append(") VALUES (");
+        appendParameters(sb, columns.length);
+        sb.append(") ON DUPLICATE KEY UPDATE ");
+
+        List<String> updates = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            if (!keyFlags[i]) {
+                updates.add(columns[i] + " = VALUES(" + columns[i] + ")");
+            }
+        }
+        if (updates.isEmpty()) {
+            // all columns are keys, an existing row is kept
+            updates.add(firstKey(columns, keyFlags) + " = " + firstKey(columns, keyFlags));
+        }
+        sb.append(String.join(", ", updates));
+        return sb.toString();
+    }
+
+    private static String oracleSql(String table, String[] columns, boolean[] keyFlags) {
+        StringBuilder sb = new StringBuilder(192 + columns.length * 48);
+        sb.append("MERGE INTO ").append(table).append(" t USING (SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("? ").append(columns[i]);
+        }
+        sb.append(" FROM DUAL) s");
+        appendMergeBody(sb, columns, keyFlags);
+        return sb.toString();
+    }
+
+    private static String mergeValuesSql(String table, String[] columns, boolean[] keyFlags, boolean mssql) {
+        StringBuilder sb = new StringBuilder(192 + columns.length * 48);
+        sb.append("MERGE INTO ").append(table);
+        if (mssql) {
+            // MERGE is not atomic on SQL Server without a serializable range lock
+            sb.append(" WITH (HOLDLOCK)");
+        }
+        sb.append(" t USING (VALUES (");
+        appendParameters(sb, columns.length);
+        sb.append(")) s (");
+        appendColumns(sb, columns, "");
+        sb.append(')');
+        appendMergeBody(sb, columns, keyFlags);
+        if (mssql) {
+            // SQL Server require a terminated MERGE statement
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    private static void appendMergeBody(StringBuilder sb, String[] columns, boolean[] keyFlags) {
+        sb.append(" ON (");
+        boolean first = true;
+        for (int i = 0; i < columns.length; i++) {
+            if (keyFlags[i]) {
+                sb.append(first ? "" : " AND ").append("t.").append(columns[i]).append(" = s.").append(columns[i]);
+                first = false;
+            }
+        }
+        sb.append(')');
+
+        first = true;
+        for (int i = 0; i < columns.length; i++) {
+            if (!keyFlags[i]) {
+                sb.append(first ? " WHEN MATCHED THEN UPDATE SET " : ", ");
+                sb.append(columns[i]).append(" = s.").append(columns[i]);
+                first = false;
+            }
+        }
+
+        sb.append(" WHEN NOT MATCHED THEN INSERT (");
+        appendColumns(sb, columns, "");
+        sb.append(") VALUES (");
+        appendColumns(sb, columns, "s.");
+        sb.append(')');
+    }
+
+    private static void appendColumns(StringBuilder sb, String[] columns, String prefix) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(prefix).append(columns[i]);
+        }
+    }
+
+    private static void appendParameters(StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+    }
+
+    private static String firstKey(String[] columns, boolean[] keyFlags) {
+        for (int i = 0; i < columns.length; i++) {
+            if (keyFlags[i]) {
+                return columns[i];
+            }
+        }
+        return columns[0];
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.AsyncJdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class AsyncJdbcTest {
+    public static void main(String[] args) {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Connection conn = JdbcMocks.connection("jdbc:mock:async", "H2", sql -> {
+            int now = running.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return JdbcMocks.rowSet(new String[]{"ID", "NAME"}, new int[]{Types.INTEGER, Types.VARCHAR},
+                    new Object[]{1, "A"}, new Object[]{2, "B"});
+        }, new ArrayList<>());
+        DataSource dataSource = JdbcMocks.proxy(DataSource.class, (proxy, method, methodArgs) ->
+                ("getConnection".equals(method.getName()) ? conn : JdbcMocks.defaultValue(method.getReturnType())));
+
+        System.out.println("Virtual threads : " + AsyncJdbc.isVirtualThreads());
+        AsyncJdbc first = AsyncJdbc.create(dataSource).maxConcurrency(4);
+        AsyncJdbc second = AsyncJdbc.create(dataSource);
+        List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            futures.add((i % 2 == 0 ? first : second).queryForMaps("SELECT ID, NAME FROM EMPLOYEE WHERE DEPT = ?", i));
+        }
+        System.out.println("Pending : " + first.getPendingCount() + ", active : " + first.getActiveCount());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        System.out.println("Rows : " + futures.get(0).join());
+        System.out.println("20 queries : " + (System.nanoTime() - start) / 1_000_000 + " ms, max concurrency "
+                + second.getMaxConcurrency() + ", peak " + peak.get());
+    }
+}
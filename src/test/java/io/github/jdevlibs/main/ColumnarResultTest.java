@@ -0,0 +1,78 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.ColumnarResult;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class ColumnarResultTest {
+    public static void main(String[] args) throws SQLException {
+        ColumnarResult result = ColumnarResult.load(orders());
+        int amount = result.getColumnIndex("AMOUNT");
+        int quantity = result.getColumnIndex("QUANTITY");
+        int createdAt = result.getColumnIndex("CREATED_AT");
+        ColumnarResult.Cursor cursor = result.cursor();
+        while (cursor.next()) {
+            System.out.println("STATUS=" + cursor.getObject("STATUS") + ", AMOUNT=" + cursor.getObject(amount)
+                    + " (long " + cursor.getLong(amount) + "), QUANTITY=" + cursor.getObject(quantity)
+                    + ", CREATED_AT=" + cursor.getObject(createdAt));
+        }
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        System.out.println("Rows : " + result.getRowCount());
+        System.out.println("Sum AMOUNT : " + result.sum(amount));
+        System.out.println("Sum QUANTITY : " + result.sum(quantity));
+        System.out.println("Dictionary STATUS : " + result.getDictionarySize(result.getColumnIndex("STATUS")));
+    }
+
+    private static CachedRowSet orders() throws SQLException {
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(4);
+        meta.setColumnName(1, "STATUS");
+        meta.setColumnLabel(1, "STATUS");
+        meta.setColumnType(1, Types.VARCHAR);
+        meta.setColumnName(2, "AMOUNT");
+        meta.setColumnLabel(2, "AMOUNT");
+        meta.setColumnType(2, Types.DECIMAL);
+        meta.setScale(2, 2);
+        meta.setColumnName(3, "QUANTITY");
+        meta.setColumnLabel(3, "QUANTITY");
+        meta.setColumnType(3, Types.INTEGER);
+        meta.setSigned(3, false);
+        meta.setColumnName(4, "CREATED_AT");
+        meta.setColumnLabel(4, "CREATED_AT");
+        meta.setColumnType(4, Types.TIMESTAMP);
+
+        Object[][] rows = {
+                {"NEW", new BigDecimal("10.50"), 5L, Timestamp.valueOf("2021-03-09 08:05:59.12")},
+                {"PAID", new BigDecimal("92233720368547758.07"), 3_000_000_000L,
+                        Timestamp.valueOf("2021-03-09 08:05:59.123456789")},
+                {"NEW", null, null, null}
+        };
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(meta);
+        for (Object[] row : rows) {
+            rs.moveToInsertRow();
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    rs.updateNull(i + 1);
+                } else {
+                    rs.updateObject(i + 1, row[i]);
+                }
+            }
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+        rs.beforeFirst();
+        return rs;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.CsvImporter;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class CsvImporterTest {
+    public static void main(String[] args) throws SQLException {
+        List<String> batches = new CopyOnWriteArrayList<>();
+        Connection conn = JdbcMocks.connection("jdbc:mock:hr", "H2", sql -> {
+            if ("getColumns".equals(sql)) {
+                return JdbcMocks.rowSet(new String[]{"COLUMN_NAME", "DATA_TYPE", "DECIMAL_DIGITS"},
+                        new int[]{Types.VARCHAR, Types.INTEGER, Types.INTEGER},
+                        new Object[]{"EMP_ID", Types.INTEGER, 0},
+                        new Object[]{"EMP_NAME", Types.VARCHAR, 0},
+                        new Object[]{"SALARY", Types.DECIMAL, 2},
+                        new Object[]{"START_DATE", Types.DATE, 0});
+            }
+            return JdbcMocks.rowSet(new String[0], new int[0]);
+        }, batches);
+
+        StringBuilder csv = new StringBuilder("EMP_ID,EMP_NAME,SALARY,START_DATE\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(",\"Employee, ").append(i).append("\",").append(i * 10).append(".50,")
+                    .append("01/03/2021\n");
+        }
+        csv.append("1001,12\" pipe,100.00,01/03/2021\n");
+        csv.append("x,Invalid,abc,31/02/2021\n");
+
+        StringWriter quarantine = new StringWriter();
+        CsvImporter.Result result = CsvImporter.create(conn, "HR.EMPLOYEE")
+                .header(true)
+                .workers(2)
+                .batchSize(200)
+                .chunkSize(64)
+                .maxErrors(10)
+                .quarantine(quarantine)
+                .onProgress(progress -> System.out.println("Progress : " + progress), 500)
+                .importFrom(new StringReader(csv.toString()));
+
+        System.out.println("Result : " + result);
+        System.out.println("Rejected : " + result.getRejectedRows());
+        System.out.println("Quarantine : " + quarantine.toString().trim());
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        Collections.sort(batches);
+        System.out.println("Batches : " + batches.size() + ", first : " + batches.get(0));
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.fotmat.FixedDateCodec;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class FixedDateCodecTest {
+    private static final int COUNT = 1_000_000;
+
+    public static void main(String[] args) {
+        LocalDateTime dateTime = LocalDateTime.of(2021, 3, 9, 8, 5, 59, 120_000_000);
+        StringBuilder builder = new StringBuilder();
+        FixedDateCodec.formatDateTime(dateTime, builder);
+        System.out.println("Date time : " + builder);
+        builder.setLength(0);
+        FixedDateCodec.formatIsoDateTime(dateTime, builder);
+        System.out.println("ISO : " + builder);
+        System.out.println("Parse : " + FixedDateCodec.parseDateTime("09/03/2021 08:05:59", 0));
+        System.out.println("Parse ISO : " + FixedDateCodec.parseIsoDateTime("2021-03-09T08:05:59.12", 0, 22));
+        System.out.println("Invalid : " + FixedDateCodec.parseDate("30/02/2021", 0));
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(FixedDateCodec.DATE_TIME);
+        for (int round = 0; round < 3; round++) {
+            benchmark(formatter, dateTime);
+        }
+    }
+
+    private static void benchmark(DateTimeFormatter formatter, LocalDateTime dateTime) {
+        LocalDateTime[] values = new LocalDateTime[366];
+        String[] texts = new String[values.length];
+        for (int i = 0; i < texts.length; i++) {
+            values[i] = dateTime.plusDays(i).plusMinutes(i);
+            texts[i] = formatter.format(values[i]);
+        }
+
+        long start = System.nanoTime();
+        int length = 0;
+        for (int i = 0; i < COUNT; i++) {
+            length += formatter.format(values[i % values.length]).charAt(1);
+        }
+        long formatterTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        char[] buffer = new char[FixedDateCodec.DATE_TIME_LENGTH];
+        for (int i = 0; i < COUNT; i++) {
+            FixedDateCodec.formatDateTime(values[i % values.length], buffer, 0);
+            length += buffer[1];
+        }
+        long codecTime = System.nanoTime() - start;
+        System.out.println("format " + COUNT + " : DateTimeFormatter " + formatterTime / 1_000_000 + " ms, FixedDateCodec "
+                + codecTime / 1_000_000 + " ms (" + length + ")");
+
+        start = System.nanoTime();
+        long days = 0;
+        for (int i = 0; i < COUNT; i++) {
+            days += LocalDateTime.parse(texts[i % texts.length], formatter).getDayOfYear();
+        }
+        formatterTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            days += FixedDateCodec.parseDateTime(texts[i % texts.length], 0).getDayOfYear();
+        }
+        codecTime = System.nanoTime() - start;
+        System.out.println("parse " + COUNT + " : DateTimeFormatter " + formatterTime / 1_000_000 + " ms, FixedDateCodec "
+                + codecTime / 1_000_000 + " ms (" + days + ")");
+
+        start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            FixedDateCodec.formatDate(values[i % values.length].toLocalDate(), buffer, 0);
+            length += buffer[1];
+        }
+        System.out.println("format date " + COUNT + " : FixedDateCodec " + (System.nanoTime() - start) / 1_000_000
+                + " ms (" + length + ")");
+    }
+}
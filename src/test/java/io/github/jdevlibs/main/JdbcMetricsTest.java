@@ -0,0 +1,114 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.JdbcMetrics;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class JdbcMetricsTest {
+    public static void main(String[] args) throws SQLException {
+        System.out.println("Fingerprint : " + JdbcMetrics.fingerprint(
+                "SELECT * FROM EMP WHERE NAME = 'A' AND ID IN (1, 2, 3) -- comment"));
+
+        JdbcMetrics metrics = new JdbcMetrics();
+        Connection conn = metrics.wrap(connection());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT 1");
+            try (ResultSet rs = stmt.getResultSet()) {
+                while (rs.next()) {
+                    System.out.println("Row : " + rs.getString(1));
+                }
+            }
+            stmt.executeBatch();
+            stmt.addBatch("DELETE FROM EMP WHERE ID = 1");
+            stmt.addBatch("DELETE FROM EMP WHERE ID = 2");
+            stmt.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM EMP WHERE ID = ?")) {
+            ps.setInt(1, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    System.out.println("Row : " + rs.getString(1));
+                }
+            }
+        }
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        for (JdbcMetrics.StatementStats stats : metrics.getStatements()) {
+            System.out.println(stats);
+        }
+    }
+
+    private static Connection connection() {
+        return (Connection) Proxy.newProxyInstance(JdbcMetricsTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "createStatement":
+                            return statement(Statement.class);
+                        case "prepareStatement":
+                            return statement(PreparedStatement.class);
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Statement statement(Class<? extends Statement> type) {
+        int[] batch = new int[1];
+        return (Statement) Proxy.newProxyInstance(JdbcMetricsTest.class.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "execute":
+                            return true;
+                        case "executeQuery":
+                        case "getResultSet":
+                            return resultSet(3);
+                        case "addBatch":
+                            batch[0]++;
+                            return null;
+                        case "executeBatch":
+                            int[] counts = new int[batch[0]];
+                            batch[0] = 0;
+                            return counts;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static ResultSet resultSet(int rows) {
+        int[] row = new int[1];
+        return (ResultSet) Proxy.newProxyInstance(JdbcMetricsTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++row[0] <= rows;
+                        case "getString":
+                            return "value-" + row[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package io.github.jdevlibs.main;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Proxy JDBC objects for test programs, a query return a ResultSet of a function and updates are logged
+ * @author supot.jdev
+ * @version 1.0
+ */
+final class JdbcMocks {
+
+    private JdbcMocks() {
+    }
+
+    /**
+     * Create a ResultSet of rows
+     * @param columns The column labels
+     * @param types The column types (java.sql.Types)
+     * @param rows The row values
+     * @return The ResultSet positioned before a first row
+     */
+    static CachedRowSet rowSet(String[] columns, int[] types, Object[]... rows) {
+        try {
+            RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+            meta.setColumnCount(columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                meta.setColumnName(i + 1, columns[i]);
+                meta.setColumnLabel(i + 1, columns[i]);
+                meta.setColumnType(i + 1, types[i]);
+            }
+
+            CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+            rs.setMetaData(meta);
+            for (Object[] row : rows) {
+                rs.moveToInsertRow();
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] == null) {
+                        rs.updateNull(i + 1);
+                    } else {
+                        rs.updateObject(i + 1, row[i]);
+                    }
+                }
+                rs.insertRow();
+            }
+            rs.moveToCurrentRow();
+            rs.beforeFirst();
+            return rs;
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Create a connection, DatabaseMetaData getColumns/getPrimaryKeys call queries with a method name
+     * @param url The JDBC URL
+     * @param product The database product name
+     * @param queries The ResultSet of a SQL (a new ResultSet per call)
+     * @param log The executed updates and batches
+     * @return The connection
+     */
+    static Connection connection(String url, String product, Function<String, ResultSet> queries, List<String> log) {
+        Connection[] conn = new Connection[1];
+        DatabaseMetaData dbMeta = proxy(DatabaseMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getURL":
+                    return url;
+                case "getDatabaseProductName":
+                    return product;
+                case "getUserName":
+                    return "APP";
+                case "getColumns":
+                case "getPrimaryKeys":
+                    return queries.apply(method.getName());
+                case "getConnection":
+                    return conn[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+
+        conn[0] = proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return dbMeta;
+                case "prepareStatement":
+                    return statement(conn[0], (String) args[0], queries, log);
+                case "getAutoCommit":
+                    return true;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+        return conn[0];
+    }
+
+    private static PreparedStatement statement(Connection conn, String sql, Function<String, ResultSet> queries,
+                                               List<String> log) {
+        int[] batch = new int[1];
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    return queries.apply(sql);
+                case "executeUpdate":
+                    log.add(sql);
+                    return 1;
+                case "addBatch":
+                    batch[0]++;
+                    return null;
+                case "executeBatch":
+                    log.add(sql + " x " + batch[0]);
+                    int[] counts = new int[batch[0]];
+                    Arrays.fill(counts, 1);
+                    batch[0] = 0;
+                    return counts;
+                case "clearBatch":
+                    batch[0] = 0;
+                    return null;
+                case "getConnection":
+                    return conn;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcMocks.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return "Mock" + type.getSimpleName();
+                        }
+                    }
+                    return handler.invoke(proxy, method, args);
+                });
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
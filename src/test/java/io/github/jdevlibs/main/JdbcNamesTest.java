@@ -0,0 +1,27 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class JdbcNamesTest {
+    public static void main(String[] args) {
+        String[] names = {"EMPLOYEE_NAME", "employeeName", "Employee Name", "A_B", "HOME.ADDRESS_LINE1", "ID", "_TYPE"};
+        for (String name : names) {
+            System.out.println(name + " : " + JdbcUtils.toPropertyName(name)
+                    + " | " + JdbcUtils.toNestedPropertyName(name)
+                    + " | " + JdbcUtils.toClassName(name)
+                    + " | [" + JdbcUtils.toHeaderName(name) + "]");
+        }
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        long start = System.nanoTime();
+        int length = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            length += JdbcUtils.toPropertyName(names[i % names.length]).length();
+        }
+        System.out.println("1,000,000 conversions : " + (System.nanoTime() - start) / 1_000_000 + " ms (" + length + ")");
+    }
+}
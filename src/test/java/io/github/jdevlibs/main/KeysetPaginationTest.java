@@ -0,0 +1,37 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.Dialect;
+import io.github.jdevlibs.utils.jdbc.KeysetPagination;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class KeysetPaginationTest {
+    public static void main(String[] args) throws SQLException {
+        testSql();
+        System.out.println("++++++++++++++++++++++++++++++++");
+        testToken();
+    }
+
+    private static void testSql() {
+        for (Dialect dialect : Dialect.values()) {
+            KeysetPagination pagination = KeysetPagination.of("SELECT * FROM ORDERS WHERE STATUS = ?", dialect,
+                    "CREATED_AT DESC", "o.ORDER_ID").pageSize(50);
+            System.out.println(dialect + " first : " + pagination.getSql(true));
+            System.out.println(dialect + " next  : " + pagination.getSql(false));
+        }
+    }
+
+    private static void testToken() throws SQLException {
+        String token = KeysetPagination.encodeToken(Timestamp.valueOf("2021-05-01 10:20:30.5"), 1001L,
+                new BigDecimal("12.50"), "A-01");
+        System.out.println("Token : " + token);
+        System.out.println("Keys : " + Arrays.toString(KeysetPagination.decodeToken(token)));
+    }
+}
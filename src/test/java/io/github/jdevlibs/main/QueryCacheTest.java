@@ -0,0 +1,46 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.CachedResult;
+import io.github.jdevlibs.utils.jdbc.QueryCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class QueryCacheTest {
+    public static void main(String[] args) throws SQLException {
+        AtomicInteger queries = new AtomicInteger();
+        List<String> updates = new ArrayList<>();
+        Connection conn = JdbcMocks.connection("jdbc:mock:codes", "H2", sql -> {
+            queries.incrementAndGet();
+            return JdbcMocks.rowSet(new String[]{"CODE", "NAME"}, new int[]{Types.VARCHAR, Types.VARCHAR},
+                    new Object[]{"M", "Male"}, new Object[]{"F", "Female"});
+        }, updates);
+
+        QueryCache cache = new QueryCache(100, 10, TimeUnit.MINUTES);
+        String sql = "SELECT CODE, NAME FROM M_CODE c JOIN M_TYPE t ON t.TYPE = c.TYPE WHERE t.TYPE = ?";
+        for (int i = 0; i < 3; i++) {
+            CachedResult result = cache.query(conn, sql, "GENDER");
+            System.out.println("Query " + i + " : " + result.getRowCount() + " rows, executed " + queries.get());
+        }
+        cache.query(conn, sql, "STATUS");
+        System.out.println("Other parameter : executed " + queries.get() + ", size " + cache.size());
+
+        cache.update(conn, "UPDATE M_CODE SET NAME = ? WHERE CODE = ?", "Man", "M");
+        System.out.println("After update M_CODE : size " + cache.size() + ", updates " + updates);
+        cache.query(conn, sql, "GENDER");
+        System.out.println("Query again : executed " + queries.get());
+        System.out.println("Invalidate M_TYPE : " + cache.invalidate("hr.m_type") + " removed");
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        System.out.println(cache + " hit=" + cache.getHitCount() + ", miss=" + cache.getMissCount());
+    }
+}
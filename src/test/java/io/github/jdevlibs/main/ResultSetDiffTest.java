@@ -0,0 +1,45 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.ResultSetDiff;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class ResultSetDiffTest {
+    private static final String[] COLUMNS = {"ORDER_ID", "LINE_NO", "PRODUCT", "AMOUNT"};
+    private static final int[] TYPES = {Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.DECIMAL};
+
+    public static void main(String[] args) throws SQLException {
+        Connection source = JdbcMocks.connection("jdbc:mock:source", "H2", sql -> {
+            if ("getPrimaryKeys".equals(sql)) {
+                return JdbcMocks.rowSet(new String[]{"COLUMN_NAME", "PK_NAME", "KEY_SEQ"},
+                        new int[]{Types.VARCHAR, Types.VARCHAR, Types.INTEGER},
+                        new Object[]{"LINE_NO", "PK_ORDER_LINE", 2}, new Object[]{"ORDER_ID", "PK_ORDER_LINE", 1});
+            }
+            return JdbcMocks.rowSet(COLUMNS, TYPES,
+                    new Object[]{1, 1, "Pen", new BigDecimal("10.00")},
+                    new Object[]{1, 2, "Book", new BigDecimal("120.50")},
+                    new Object[]{2, 1, "Bag", new BigDecimal("500")});
+        }, new ArrayList<>());
+        Connection target = JdbcMocks.connection("jdbc:mock:target", "H2", sql -> JdbcMocks.rowSet(COLUMNS, TYPES,
+                new Object[]{1, 1, "Pen", new BigDecimal("10")},
+                new Object[]{1, 2, "Book", new BigDecimal("99.00")},
+                new Object[]{1, 3, "Ruler", new BigDecimal("5.00")}), new ArrayList<>());
+
+        ResultSetDiff diff = ResultSetDiff.of(source, "SALES.ORDER_LINE");
+        System.out.println("Keys : " + diff.getKeys());
+        System.out.println("SQL : " + diff.getSql("SALES.ORDER_LINE"));
+        ResultSetDiff.Result result = diff.compareTables(source, target, "SALES.ORDER_LINE",
+                difference -> System.out.println("Difference : " + difference));
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        System.out.println("Result : " + result);
+    }
+}
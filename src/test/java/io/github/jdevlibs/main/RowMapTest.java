@@ -0,0 +1,83 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.jdbc.RowMap;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class RowMapTest {
+    public static void main(String[] args) throws Exception {
+        List<Map<String, Object>> rows = RowMap.readAll(employees());
+        System.out.println("Rows : " + rows);
+        Map<String, Object> row = rows.get(0);
+        System.out.println("Get NAME : " + row.get("NAME") + ", equals HashMap : "
+                + row.equals(new LinkedHashMap<>(row)));
+        row.put("NAME", "Updated");
+        row.put("SALARY", 100);
+        System.out.println("Modified : " + row);
+        System.out.println("Deserialized : " + copy(rows.get(1)));
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        CachedRowSet rs = employees();
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("NAME", "name");
+        columns.put("EMP_ID", "empId");
+        while (rs.next()) {
+            System.out.println("resultSetToMap : " + JdbcUtils.resultSetToMap(rs, columns));
+        }
+    }
+
+    private static CachedRowSet employees() throws SQLException {
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(3);
+        meta.setColumnName(1, "EMP_ID");
+        meta.setColumnLabel(1, "EMP_ID");
+        meta.setColumnType(1, Types.INTEGER);
+        meta.setColumnName(2, "NAME");
+        meta.setColumnLabel(2, "NAME");
+        meta.setColumnType(2, Types.VARCHAR);
+        meta.setColumnName(3, "EMP_ID");
+        meta.setColumnLabel(3, "EMP_ID");
+        meta.setColumnType(3, Types.INTEGER);
+
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(meta);
+        for (int i = 1; i <= 3; i++) {
+            rs.moveToInsertRow();
+            rs.updateInt(1, i);
+            rs.updateString(2, "Employee " + i);
+            rs.updateInt(3, i * 10);
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+        rs.beforeFirst();
+        return rs;
+    }
+
+    private static Object copy(Object value) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object result = input.readObject();
+            return result.getClass().getSimpleName() + result;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.SimpleConnectionPool;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class SimpleConnectionPoolTest {
+    private static final AtomicInteger CONNECTIONS = new AtomicInteger();
+
+    public static void main(String[] args) throws SQLException {
+        try (SimpleConnectionPool pool = new SimpleConnectionPool(SimpleConnectionPoolTest::connection)
+                .maxSize(2)
+                .borrowTimeout(1, TimeUnit.SECONDS)) {
+            try (Connection conn = pool.getConnection()) {
+                conn.setAutoCommit(false);
+                conn.setSchema("HR");
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT 1");
+                System.out.println("Statement connection is pooled : " + (stmt.getConnection() == conn));
+                System.out.println("ResultSet statement is pooled : " + (rs.getStatement() == stmt));
+                System.out.println("ResultSet connection is pooled : " + (rs.getStatement().getConnection() == conn));
+                System.out.println("Unwrap is pooled : " + (conn.unwrap(Connection.class) == conn));
+            }
+
+            try (Connection conn = pool.getConnection()) {
+                System.out.println("Next lease : autoCommit=" + conn.getAutoCommit() + ", schema=" + conn.getSchema());
+            }
+            System.out.println(pool);
+        }
+        System.out.println("Open connections : " + CONNECTIONS.get());
+    }
+
+    private static Connection connection() {
+        CONNECTIONS.incrementAndGet();
+        Map<String, Object> state = new HashMap<>();
+        state.put("autoCommit", true);
+        state.put("schema", "PUBLIC");
+        return (Connection) Proxy.newProxyInstance(SimpleConnectionPoolTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                            return state.get("autoCommit");
+                        case "setAutoCommit":
+                            state.put("autoCommit", args[0]);
+                            return null;
+                        case "getSchema":
+                            return state.get("schema");
+                        case "setSchema":
+                            state.put("schema", args[0]);
+                            return null;
+                        case "createStatement":
+                            return statement((Connection) proxy);
+                        case "isValid":
+                            return true;
+                        case "close":
+                            CONNECTIONS.decrementAndGet();
+                            return null;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Statement statement(Connection conn) {
+        return (Statement) Proxy.newProxyInstance(SimpleConnectionPoolTest.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeQuery":
+                            return resultSet((Statement) proxy);
+                        case "getConnection":
+                            return conn;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static ResultSet resultSet(Statement stmt) {
+        return (ResultSet) Proxy.newProxyInstance(SimpleConnectionPoolTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    if ("getStatement".equals(method.getName())) {
+                        return stmt;
+                    }
+                    return defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.JdbcUtils;
+import io.github.jdevlibs.utils.jdbc.SqlTemplate;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class SqlTemplateTest {
+    public static void main(String[] args) throws SQLException {
+        testParse();
+        System.out.println("++++++++++++++++++++++++++++++++");
+        testLike();
+    }
+
+    private static void testParse() throws SQLException {
+        SqlTemplate template = SqlTemplate.of("SELECT * FROM EMPLOYEE e -- :comment\n"
+                + "WHERE e.NAME LIKE :name ESCAPE '!' AND e.REMARK <> ':text' /* :block */"
+                + " AND e.CREATED::date = :date AND (e.DEPT_ID = :dept OR e.MANAGER_DEPT_ID = :dept)");
+        System.out.println("SQL : " + template.getSql());
+        System.out.println("Parameters : " + template.getParameters());
+        System.out.println("Indexes of dept : " + Arrays.toString(template.getIndexes("dept")));
+        System.out.println("Cached : " + (template == SqlTemplate.of(template.getSource())));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", JdbcUtils.sqlFullLike("50%_off"));
+        params.put("date", null);
+        params.put("dept", 10);
+        System.out.println("Args : " + Arrays.toString(template.toArgs(params)));
+    }
+
+    private static void testLike() {
+        String[] values = {"supot", "50%", "a_b", "wow!", "!%_"};
+        for (String value : values) {
+            System.out.println(value + " : " + JdbcUtils.sqlFullLike(value) + JdbcUtils.getEscapeChar(value));
+        }
+    }
+}
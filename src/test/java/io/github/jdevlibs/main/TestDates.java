@@ -22,6 +22,7 @@ import java.time.LocalDateTime;
 import java.util.Date;
 
 import io.github.jdevlibs.utils.DateFormats;
+import io.github.jdevlibs.utils.fotmat.ThaiDateFormatter;
 
 /**
 * @author supot
@@ -52,6 +53,12 @@ public class TestDates {
 		System.out.println("2020-08-20 10:20:30 -> " + DateFormats.date("2020-08-20 10:20:30"));
 		System.out.println("2020-08-20 10:20 -> " + DateFormats.date("2020-08-20 10:20"));
 		System.out.println("2020-08-20 -> " + DateFormats.date("2020-08-20"));
+
+		LocalDateTime thai = LocalDateTime.of(2021, 3, 9, 13, 30, 15);
+		System.out.println("Thai -> " + DateFormats.formatThai(thai) + " | "
+				+ DateFormats.formatThai(thai.toLocalDate(), "EEEE d MMMM G yyyy"));
+		System.out.println("09/03/2564 -> " + ThaiDateFormatter.parseDate("09/03/2564", "dd/MM/yyyy"));
+		System.out.println("9 มีนาคม 2564 13:30 -> " + ThaiDateFormatter.parseDateTime("9 มีนาคม 2564 13:30", "d MMMM yyyy HH:mm"));
 	}
 
 }
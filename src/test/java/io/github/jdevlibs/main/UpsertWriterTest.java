@@ -0,0 +1,25 @@
+package io.github.jdevlibs.main;
+
+import io.github.jdevlibs.utils.jdbc.Dialect;
+import io.github.jdevlibs.utils.jdbc.UpsertWriter;
+
+import java.sql.SQLException;
+
+/**
+ * @author supot.jdev
+ * @version 1.0
+ */
+public class UpsertWriterTest {
+    public static void main(String[] args) throws SQLException {
+        String[] columns = {"EMP_ID", "DEPT_ID", "EMP_NAME", "SALARY"};
+        String[] keys = {"emp_id", "dept_id"};
+        for (Dialect dialect : Dialect.values()) {
+            System.out.println(dialect + " : " + UpsertWriter.getSql(dialect, "HR.EMPLOYEE", columns, keys));
+        }
+
+        System.out.println("++++++++++++++++++++++++++++++++");
+        String[] keyOnly = {"EMP_ID", "ROLE_ID"};
+        System.out.println(Dialect.MYSQL + " : " + UpsertWriter.getSql(Dialect.MYSQL, "EMP_ROLE", keyOnly, keyOnly));
+        System.out.println(Dialect.ORACLE + " : " + UpsertWriter.getSql(Dialect.ORACLE, "EMP_ROLE", keyOnly, keyOnly));
+    }
+}